@@ -0,0 +1,204 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * 使用Servlet 3.1的WriteListener异步写出大的响应，客户端很慢时不占用Jetty的工作线程。
+ * <p>
+ * 请求还没有进入异步模式时会先startAsync，写完或出错后由这个类complete。
+ * 已经在异步模式中(如AsyncMergeMethod)时，AsyncContextTask看到isAsyncWriting()就不再complete。
+ * <p>
+ * 超时时间FrameworkConfig.asyncWriteTimeout是没有进展的最长时间，每次可以继续写出时重新计时。
+ * Jetty 9.4只在第一次dispatch返回时按当时的超时时间启动计时器，之后setTimeout不会重新计时，
+ * 所以已经在计时的请求需要取消原来的计时器(如AsyncMergeMethod.timeout)重新开始，见AsyncTimeouts。
+ */
+public class AsyncResponseWriter implements WriteListener, AsyncListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncResponseWriter.class);
+
+    private static final String ASYNC_WRITING_ATTRIBUTE = AsyncResponseWriter.class.getName();
+
+    private static final int CHUNK_SIZE = 32 * 1024;
+
+    private final ServletRequest request;
+    private final long writeTimeout;
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream outputStream;
+
+    //两种内容来源只会有一个
+    private final byte[] contentBytes;
+    private int offset;
+    private final InputStream inputStream;
+    private final byte[] buffer;
+
+    private volatile boolean isFinished = false;
+
+
+    private AsyncResponseWriter(ServletRequest request, long writeTimeout, AsyncContext asyncContext, ServletOutputStream outputStream, byte[] contentBytes, InputStream inputStream) {
+        this.request = request;
+        this.writeTimeout = writeTimeout;
+        this.asyncContext = asyncContext;
+        this.outputStream = outputStream;
+        this.contentBytes = contentBytes;
+        this.offset = 0;
+        this.inputStream = inputStream;
+        this.buffer = inputStream == null ? null : new byte[CHUNK_SIZE];
+    }
+
+
+    /**
+     * 内容长度超过FrameworkConfig.asyncWriteThreshold，而且请求支持异步时才使用异步写出
+     */
+    public static boolean isAsyncWritable(ServletRequest request, long contentLength) {
+        int threshold = FrameworkConfig.getInstance().getAsyncWriteThreshold();
+        if (threshold < 0 || contentLength < threshold) {
+            return false;
+        }
+        if ("HEAD".equalsIgnoreCase(getMethod(request))) {
+            return false;
+        }
+        return request.isAsyncStarted() || request.isAsyncSupported();
+    }
+
+
+    //正在异步写出的请求，由AsyncResponseWriter负责complete
+    public static boolean isAsyncWriting(ServletRequest request) {
+        return request.getAttribute(ASYNC_WRITING_ATTRIBUTE) != null;
+    }
+
+
+    /**
+     * 状态和头信息需要在调用前设置好
+     */
+    public static void write(ServletRequest request, ServletResponse response, byte[] contentBytes) throws IOException {
+        start(request, response, contentBytes, null);
+    }
+
+
+    /**
+     * 写完或出错后会关闭inputStream
+     */
+    public static void write(ServletRequest request, ServletResponse response, InputStream inputStream) throws IOException {
+        start(request, response, null, inputStream);
+    }
+
+
+    private static void start(ServletRequest request, ServletResponse response, byte[] contentBytes, InputStream inputStream) throws IOException {
+
+        AsyncContext asyncContext;
+        if (request.isAsyncStarted()) {
+            asyncContext = request.getAsyncContext();
+        } else {
+            asyncContext = request.startAsync(request, response);
+        }
+
+        //写出的时间与客户端的速度有关，不使用之前设置的超时时间
+        long writeTimeout = FrameworkConfig.getInstance().getAsyncWriteTimeout();
+        asyncContext.setTimeout(writeTimeout);
+
+        request.setAttribute(ASYNC_WRITING_ATTRIBUTE, Boolean.TRUE);
+
+        ServletOutputStream outputStream = response.getOutputStream();
+        AsyncResponseWriter writer = new AsyncResponseWriter(request, writeTimeout, asyncContext, outputStream, contentBytes, inputStream);
+        asyncContext.addListener(writer);
+        outputStream.setWriteListener(writer);
+    }
+
+
+    private static String getMethod(ServletRequest request) {
+        if (request instanceof HttpServletRequest) {
+            return ((HttpServletRequest) request).getMethod();
+        }
+        return null;
+    }
+
+
+    @Override
+    public void onWritePossible() throws IOException {
+        AsyncTimeouts.restart(request, asyncContext, writeTimeout);
+        while (!isFinished && outputStream.isReady()) {
+            if (contentBytes != null) {
+                int length = Math.min(CHUNK_SIZE, contentBytes.length - offset);
+                if (length <= 0) {
+                    finish();
+                    return;
+                }
+                outputStream.write(contentBytes, offset, length);
+                offset = offset + length;
+            } else {
+                int read = inputStream.read(buffer);
+                if (read < 0) {
+                    finish();
+                    return;
+                }
+                outputStream.write(buffer, 0, read);
+            }
+        }
+    }
+
+
+    @Override
+    public void onError(Throwable t) {
+        LOGGER.info("async write error : " + t.toString());
+        finish();
+    }
+
+
+    private synchronized void finish() {
+        if (isFinished) {
+            return;
+        }
+        isFinished = true;
+
+        closeInputStream();
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            //超时等情况下已经complete
+        }
+    }
+
+
+    private void closeInputStream() {
+        if (inputStream != null) {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        closeInputStream();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        LOGGER.info("async write timeout");
+        finish();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        finish();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+}
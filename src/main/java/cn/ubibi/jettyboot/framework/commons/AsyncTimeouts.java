@@ -0,0 +1,71 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import org.eclipse.jetty.server.AsyncContextEvent;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletRequest;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * 重新开始异步请求的超时计时。
+ * <p>
+ * Servlet规范的setTimeout在Jetty 9.4中不会重新计时，这里使用Jetty内部的AsyncContextEvent取消原来的计时器再重新开始。
+ * 用到的Jetty内部API都只在这个类中，不是Jetty的请求或升级Jetty后这些API不可用时，退回到asyncContext.setTimeout。
+ */
+final class AsyncTimeouts {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncTimeouts.class);
+
+    //Jetty内部API不存在(版本不兼容)时不再尝试
+    private static volatile boolean isJettyTimerAvailable = true;
+
+    private AsyncTimeouts() {
+    }
+
+
+    /**
+     * 计时器还没有启动时(仍在第一次dispatch中)只设置超时时间，dispatch返回时Jetty会按新的超时时间启动
+     *
+     * @return 是否通过Jetty的计时器重新计时，false表示使用了asyncContext.setTimeout
+     */
+    static boolean restart(ServletRequest request, AsyncContext asyncContext, long timeout) {
+        if (timeout <= 0) {
+            return false;
+        }
+        if (isJettyTimerAvailable) {
+            try {
+                if (restartJettyTimer(request, timeout)) {
+                    return true;
+                }
+            } catch (LinkageError e) {
+                isJettyTimerAvailable = false;
+                LOGGER.info("jetty async timer not available , using AsyncContext.setTimeout : " + e.toString());
+            } catch (RuntimeException e) {
+                LOGGER.debug("restart jetty async timer failed", e);
+            }
+        }
+        asyncContext.setTimeout(timeout);
+        return false;
+    }
+
+
+    private static boolean restartJettyTimer(ServletRequest request, long timeout) {
+        Request baseRequest = Request.getBaseRequest(request);
+        if (baseRequest == null) {
+            return false;
+        }
+        AsyncContextEvent event = baseRequest.getHttpChannelState().getAsyncContextEvent();
+        Scheduler scheduler = baseRequest.getHttpChannel().getScheduler();
+        if (event == null || scheduler == null || !event.hasTimeoutTask()) {
+            return false;
+        }
+        event.cancelTimeoutTask();
+        event.setTimeoutTask(scheduler.schedule(event, timeout, TimeUnit.MILLISECONDS));
+        return true;
+    }
+}
@@ -1,11 +1,15 @@
 package cn.ubibi.jettyboot.framework.commons;
 
+import cn.ubibi.jettyboot.framework.commons.ifs.ValueConverter;
+
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CastBasicTypeUtils {
 
@@ -13,6 +17,23 @@ public class CastBasicTypeUtils {
     private static final Long long_0 = 0L;
     private static final String empty_str = "";
 
+    private static final int CONVERT_NOT_SUPPORT = 0;
+    private static final int CONVERT_STRING = 1;
+    private static final int CONVERT_INTEGER = 2;
+    private static final int CONVERT_FLOAT = 3;
+    private static final int CONVERT_DOUBLE = 4;
+    private static final int CONVERT_LONG = 5;
+    private static final int CONVERT_BOOLEAN = 6;
+    private static final int CONVERT_SHORT = 7;
+    private static final int CONVERT_BYTE = 8;
+    private static final int CONVERT_CHARACTER = 9;
+    private static final int CONVERT_TIMESTAMP = 10;
+    private static final int CONVERT_DATE = 11;
+    private static final int CONVERT_BIG_DECIMAL = 12;
+    private static final int CONVERT_BIG_INTEGER = 13;
+
+    private static final Map<Class, ValueConverter> basicTypeConverterCache = new ConcurrentHashMap<>();
+
     // 基本数据类型转换
     public static Object toBasicTypeOf(Object value, Class targetType) throws Exception {
         if (targetType == null) {
@@ -55,48 +76,115 @@ public class CastBasicTypeUtils {
     }
 
     private static <T> T toTypeOf(Object value, Class<T> targetType) throws Exception {
-        if (isNull(value)) {
-            return null;
-        }
+        return (T) getBasicTypeConverter(targetType).convert(value);
+    }
+
 
-        Class valueType = value.getClass();
-        if (targetType == valueType || targetType.equals(valueType)) {
-            return (T) value;
+    /**
+     * 获取某个类型的转换器，转换方式只在第一次时判断，之后直接使用
+     *
+     * @param targetType 目标类型
+     * @return 转换器
+     */
+    public static ValueConverter getBasicTypeConverter(Class targetType) {
+        ValueConverter converter = basicTypeConverterCache.get(targetType);
+        if (converter == null) {
+            converter = new BasicTypeConverter(targetType);
+            basicTypeConverterCache.put(targetType, converter);
         }
+        return converter;
+    }
+
+
+    //是否可以由getBasicTypeConverter返回的转换器转换
+    public static boolean isSupportConvert(Class targetType) {
+        return toConvertType(targetType) != CONVERT_NOT_SUPPORT;
+    }
 
 
-        Object result = null;
+    private static int toConvertType(Class targetType) {
         if (targetType == String.class) {
-            result = getStringValue(value);
+            return CONVERT_STRING;
         } else if (isTypeOf(targetType, Integer.class, Integer.TYPE)) {
-            result = toInteger(value);
+            return CONVERT_INTEGER;
         } else if (isTypeOf(targetType, Float.class, Float.TYPE)) {
-            result = toFloat(value);
+            return CONVERT_FLOAT;
         } else if (isTypeOf(targetType, Double.class, Double.TYPE)) {
-            result = toDouble(value);
+            return CONVERT_DOUBLE;
         } else if (isTypeOf(targetType, Long.class, Long.TYPE)) {
-            result = toLong(value);
+            return CONVERT_LONG;
         } else if (isTypeOf(targetType, Boolean.class, Boolean.TYPE)) {
-            result = toGeneralizedBoolean(value);
+            return CONVERT_BOOLEAN;
         } else if (isTypeOf(targetType, Short.class, Short.TYPE)) {
-            result = toShort(value);
+            return CONVERT_SHORT;
         } else if (isTypeOf(targetType, Byte.class, Byte.TYPE)) {
-            result = toByte(value);
+            return CONVERT_BYTE;
         } else if (isTypeOf(targetType, Character.class, Character.TYPE)) {
-            result = toCharacter(value);
+            return CONVERT_CHARACTER;
         } else if (targetType == Timestamp.class) {
-            result = toTimestamp(value);
+            return CONVERT_TIMESTAMP;
         } else if (targetType == Date.class) {
-            result = toDate(value);
+            return CONVERT_DATE;
         } else if (targetType == BigDecimal.class) {
-            result = toBigDecimal(value);
+            return CONVERT_BIG_DECIMAL;
         } else if (targetType == BigInteger.class) {
-            result = toBigInteger(value);
-        } else {
-            throw new Exception("NotSupportTheTypeOf:" + targetType);
+            return CONVERT_BIG_INTEGER;
+        }
+        return CONVERT_NOT_SUPPORT;
+    }
+
+
+    private static class BasicTypeConverter implements ValueConverter {
+
+        private final Class targetType;
+        private final int convertType;
+
+        BasicTypeConverter(Class targetType) {
+            this.targetType = targetType;
+            this.convertType = toConvertType(targetType);
         }
 
-        return (T) result;
+        @Override
+        public Object convert(Object value) throws Exception {
+            if (isNull(value)) {
+                return null;
+            }
+
+            if (targetType == value.getClass()) {
+                return value;
+            }
+
+            switch (convertType) {
+                case CONVERT_STRING:
+                    return getStringValue(value);
+                case CONVERT_INTEGER:
+                    return toInteger(value);
+                case CONVERT_FLOAT:
+                    return toFloat(value);
+                case CONVERT_DOUBLE:
+                    return toDouble(value);
+                case CONVERT_LONG:
+                    return toLong(value);
+                case CONVERT_BOOLEAN:
+                    return toGeneralizedBoolean(value);
+                case CONVERT_SHORT:
+                    return toShort(value);
+                case CONVERT_BYTE:
+                    return toByte(value);
+                case CONVERT_CHARACTER:
+                    return toCharacter(value);
+                case CONVERT_TIMESTAMP:
+                    return toTimestamp(value);
+                case CONVERT_DATE:
+                    return toDate(value);
+                case CONVERT_BIG_DECIMAL:
+                    return toBigDecimal(value);
+                case CONVERT_BIG_INTEGER:
+                    return toBigInteger(value);
+                default:
+                    throw new Exception("NotSupportTheTypeOf:" + targetType);
+            }
+        }
     }
 
 
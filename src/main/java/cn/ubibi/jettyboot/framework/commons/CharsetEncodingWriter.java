@@ -0,0 +1,107 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+
+/**
+ * 把字符按固定大小的缓冲区编码后写入OutputStream，不需要先把全部内容编码成byte[]。
+ * 无法编码的字符与String.getBytes一样替换。关闭时会同时关闭out。
+ */
+public class CharsetEncodingWriter extends Writer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    //上一次写入最后半个代理对
+    private char pendingHighSurrogate = 0;
+    private boolean isClosed = false;
+
+
+    public CharsetEncodingWriter(OutputStream out, Charset charset) {
+        this.out = out;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+
+    @Override
+    public void write(char[] chars, int off, int len) throws IOException {
+        if (len <= 0) {
+            return;
+        }
+
+        if (pendingHighSurrogate != 0) {
+            char[] pair = new char[]{pendingHighSurrogate, chars[off]};
+            pendingHighSurrogate = 0;
+            encode(CharBuffer.wrap(pair), false);
+            off++;
+            len--;
+        }
+
+        CharBuffer charBuffer = CharBuffer.wrap(chars, off, len);
+        encode(charBuffer, false);
+
+        //剩下的只可能是不完整的代理对，等下一次写入
+        if (charBuffer.hasRemaining()) {
+            pendingHighSurrogate = charBuffer.get();
+        }
+    }
+
+
+    private void encode(CharBuffer charBuffer, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(charBuffer, byteBuffer, endOfInput);
+            if (result.isOverflow()) {
+                flushBuffer();
+            } else if (result.isUnderflow()) {
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+
+    private void flushBuffer() throws IOException {
+        if (byteBuffer.position() > 0) {
+            out.write(byteBuffer.array(), 0, byteBuffer.position());
+            byteBuffer.clear();
+        }
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+
+        CharBuffer charBuffer = pendingHighSurrogate != 0 ? CharBuffer.wrap(new char[]{pendingHighSurrogate}) : CharBuffer.allocate(0);
+        encode(charBuffer, true);
+        while (encoder.flush(byteBuffer).isOverflow()) {
+            flushBuffer();
+        }
+        flushBuffer();
+        out.close();
+    }
+}
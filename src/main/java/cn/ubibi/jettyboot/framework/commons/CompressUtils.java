@@ -0,0 +1,86 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class CompressUtils {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+
+    /**
+     * 根据请求头 Accept-Encoding 选择压缩方式，优先gzip
+     *
+     * @return 不支持压缩返回null
+     */
+    public static String negotiateEncoding(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+
+        String deflate = null;
+        int length = acceptEncoding.length();
+        int start = 0;
+        while (start < length) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            String encoding = acceptEncoding.substring(start, end).trim();
+            start = end + 1;
+
+            //gzip;q=0 表示不接受
+            int paramsIndex = encoding.indexOf(';');
+            if (paramsIndex >= 0) {
+                if (isZeroQuality(encoding.substring(paramsIndex + 1))) {
+                    continue;
+                }
+                encoding = encoding.substring(0, paramsIndex).trim();
+            }
+
+            if (GZIP.equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+                return GZIP;
+            }
+            if (DEFLATE.equalsIgnoreCase(encoding)) {
+                deflate = DEFLATE;
+            }
+        }
+        return deflate;
+    }
+
+
+    private static boolean isZeroQuality(String params) {
+        String q = params.trim();
+        if (!q.startsWith("q=")) {
+            return false;
+        }
+        try {
+            return Float.parseFloat(q.substring(2).trim()) <= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+
+    public static byte[] compress(byte[] bytes, String encoding) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        OutputStream compressStream = toCompressStream(byteArrayOutputStream, encoding);
+        compressStream.write(bytes);
+        compressStream.close();
+        return byteArrayOutputStream.toByteArray();
+    }
+
+
+    //关闭返回的流时会同时关闭out
+    public static DeflaterOutputStream toCompressStream(OutputStream out, String encoding) throws IOException {
+        if (GZIP.equals(encoding)) {
+            return new GZIPOutputStream(out, 8192);
+        }
+        return new DeflaterOutputStream(out);
+    }
+}
@@ -0,0 +1,61 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.zip.CRC32;
+
+
+/**
+ * 弱ETag，同一个内容压缩与不压缩时ETag相同
+ */
+public class ETagUtils {
+
+    public static String toWeakETag(byte[] bytes) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes, 0, bytes.length);
+        return toWeakETag(crc32.getValue(), bytes.length);
+    }
+
+
+    public static String toWeakETag(long hash, long length) {
+        return "W/\"" + Long.toHexString(hash) + "-" + Long.toHexString(length) + "\"";
+    }
+
+
+    //由Controller提供的版本号生成
+    public static String toVersionETag(String version) {
+        return "W/\"v" + version + "\"";
+    }
+
+
+    //只有GET和HEAD请求才支持条件请求
+    public static boolean isConditionalMethod(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method);
+    }
+
+
+    public static boolean isNotModified(HttpServletRequest request, String etag) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+
+        if ("*".equals(ifNoneMatch.trim())) {
+            return true;
+        }
+
+        //弱比较，W/前缀可有可无
+        String opaqueTag = etag.startsWith("W/") ? etag.substring(2) : etag;
+        int index = ifNoneMatch.indexOf(opaqueTag);
+        while (index >= 0) {
+            int end = index + opaqueTag.length();
+            boolean isStartOK = index == 0 || ifNoneMatch.charAt(index - 1) != '"';
+            boolean isEndOK = end == ifNoneMatch.length() || ifNoneMatch.charAt(end) != '"';
+            if (isStartOK && isEndOK) {
+                return true;
+            }
+            index = ifNoneMatch.indexOf(opaqueTag, end);
+        }
+        return false;
+    }
+}
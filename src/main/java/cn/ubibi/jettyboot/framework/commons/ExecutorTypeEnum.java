@@ -0,0 +1,13 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+public enum ExecutorTypeEnum {
+
+    //原来的固定线程池(默认)，队列满之前只有核心线程在工作
+    FIXED_QUEUE,
+
+    //SynchronousQueue直接交给线程，线程不够时创建新线程，到达上限后按taskRejectPolicy处理
+    HANDOFF_POOL,
+
+    //每个任务一个虚拟线程(JDK21+)，不支持时使用HANDOFF_POOL
+    VIRTUAL_THREAD
+}
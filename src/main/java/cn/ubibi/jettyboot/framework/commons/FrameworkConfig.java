@@ -1,13 +1,12 @@
 package cn.ubibi.jettyboot.framework.commons;
 
 
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvokerTypeEnum;
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvokers;
 import cn.ubibi.jettyboot.framework.jdbc.ConnectionFactory;
 
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 public class FrameworkConfig {
 
@@ -55,6 +54,66 @@ public class FrameworkConfig {
     //FileProxyForwardHandler缓存文件路径
     private String fileProxyTempCachePath = "/tmp/FileProxyForwardHandler";
 
+    //Controller和Service方法的调用方式，需要在添加Controller之前设置
+    private MethodInvokerTypeEnum methodInvokerType = MethodInvokerTypeEnum.LAMBDA;
+
+    //JsonRender序列化后的字符数超过这个值时分块编码写入输出流，不生成完整的byte[]，小于0表示不使用流式输出
+    //不需要ETag和异步写出时只编码一次，使用chunked输出
+    private int jsonStreamRenderThreshold = 64 * 1024;
+
+    //是否保持HTTP/1.1长连接，出错时总是关闭连接
+    private boolean keepAlive = true;
+
+    //一个长连接最多处理的请求数，小于等于0表示不限制
+    private int maxRequestsPerConnection = 0;
+
+    //长连接的空闲超时时间(毫秒)，JettyBootServer启动时设置到它自己创建的Connector上，小于等于0表示不设置
+    private long keepAliveIdleTimeout = 30000;
+
+    //是否按Accept-Encoding压缩文本类的响应
+    private boolean responseCompress = true;
+
+    //小于这个长度(字节)的响应不压缩
+    private int responseCompressMinSize = 1024;
+
+    //需要压缩的Content-Type，不含字符集
+    private Set<String> responseCompressContentTypes = new HashSet<>(Arrays.asList(
+            "application/json", "text/javascript", "application/javascript", "text/html", "text/plain", "text/css"));
+
+    //GET请求的文本类响应是否自动生成ETag，并对If-None-Match返回304
+    private boolean responseETag = true;
+
+    //响应内容超过这个长度(字节)时使用WriteListener异步写出，不占用工作线程，小于0表示不使用
+    private int asyncWriteThreshold = 256 * 1024;
+
+    //异步写出时没有进展的最长时间(毫秒)，客户端每接收一部分内容重新计时
+    private long asyncWriteTimeout = 60000;
+
+    //执行AsyncMergeMethod合并任务和文件代理下载的线程池类型，默认与原来一样是10000个排队位置的固定线程池
+    private ExecutorTypeEnum taskExecutorType = ExecutorTypeEnum.FIXED_QUEUE;
+
+    private int taskExecutorCoreSize = 10;
+
+    private int taskExecutorMaxSize = 100;
+
+    //同时执行(含排队)的合并任务上限，小于等于0表示不限制
+    private int taskMaxInFlight = 0;
+
+    //线程池已满或超过并发上限时的处理方式，快速返回503需要设置为SERVICE_UNAVAILABLE
+    private TaskRejectPolicyEnum taskRejectPolicy = TaskRejectPolicyEnum.CALLER_RUNS;
+
+    //返回503时的Retry-After(秒)
+    private int taskRejectRetryAfter = 1;
+
+    //AsyncMergeMethod.linger保留的结果个数上限，超过时淘汰最早放入的，需要在第一次请求之前设置
+    private int mergeLingerMaxSize = 1024;
+
+    //JettyBootServer的工作线程是否使用虚拟线程(JDK21+)，需要在创建JettyBootServer之前设置
+    private boolean serverVirtualThreads = false;
+
+    //使用虚拟线程时Jetty线程池的最大线程数
+    private int serverVirtualMaxThreads = 10000;
+
     //ConnectionFactory存储
     private Map<String, ConnectionFactory> connectionFactoryMap = new HashMap<>();
 
@@ -67,6 +126,15 @@ public class FrameworkConfig {
         this.cacheAnnotation = cacheAnnotation;
     }
 
+    public MethodInvokerTypeEnum getMethodInvokerType() {
+        return methodInvokerType;
+    }
+
+    public void setMethodInvokerType(MethodInvokerTypeEnum methodInvokerType) {
+        this.methodInvokerType = methodInvokerType;
+        MethodInvokers.clearCache();
+    }
+
     public Charset getCharset() {
         return charset;
     }
@@ -151,6 +219,158 @@ public class FrameworkConfig {
         return connectionFactoryMap.get(connectionFactoryName);
     }
 
+    public int getJsonStreamRenderThreshold() {
+        return jsonStreamRenderThreshold;
+    }
+
+    public void setJsonStreamRenderThreshold(int jsonStreamRenderThreshold) {
+        this.jsonStreamRenderThreshold = jsonStreamRenderThreshold;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public int getMaxRequestsPerConnection() {
+        return maxRequestsPerConnection;
+    }
+
+    public void setMaxRequestsPerConnection(int maxRequestsPerConnection) {
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+    }
+
+    public long getKeepAliveIdleTimeout() {
+        return keepAliveIdleTimeout;
+    }
+
+    public void setKeepAliveIdleTimeout(long keepAliveIdleTimeout) {
+        this.keepAliveIdleTimeout = keepAliveIdleTimeout;
+    }
+
+    public boolean isResponseCompress() {
+        return responseCompress;
+    }
+
+    public void setResponseCompress(boolean responseCompress) {
+        this.responseCompress = responseCompress;
+    }
+
+    public int getResponseCompressMinSize() {
+        return responseCompressMinSize;
+    }
+
+    public void setResponseCompressMinSize(int responseCompressMinSize) {
+        this.responseCompressMinSize = responseCompressMinSize;
+    }
+
+    public Set<String> getResponseCompressContentTypes() {
+        return responseCompressContentTypes;
+    }
+
+    public void setResponseCompressContentTypes(Set<String> responseCompressContentTypes) {
+        this.responseCompressContentTypes = responseCompressContentTypes;
+    }
+
+    public boolean isResponseETag() {
+        return responseETag;
+    }
+
+    public void setResponseETag(boolean responseETag) {
+        this.responseETag = responseETag;
+    }
+
+    public int getAsyncWriteThreshold() {
+        return asyncWriteThreshold;
+    }
+
+    public void setAsyncWriteThreshold(int asyncWriteThreshold) {
+        this.asyncWriteThreshold = asyncWriteThreshold;
+    }
+
+    public long getAsyncWriteTimeout() {
+        return asyncWriteTimeout;
+    }
+
+    public void setAsyncWriteTimeout(long asyncWriteTimeout) {
+        this.asyncWriteTimeout = asyncWriteTimeout;
+    }
+
+    public ExecutorTypeEnum getTaskExecutorType() {
+        return taskExecutorType;
+    }
+
+    public void setTaskExecutorType(ExecutorTypeEnum taskExecutorType) {
+        this.taskExecutorType = taskExecutorType;
+    }
+
+    public int getTaskExecutorCoreSize() {
+        return taskExecutorCoreSize;
+    }
+
+    public void setTaskExecutorCoreSize(int taskExecutorCoreSize) {
+        this.taskExecutorCoreSize = taskExecutorCoreSize;
+    }
+
+    public int getTaskExecutorMaxSize() {
+        return taskExecutorMaxSize;
+    }
+
+    public void setTaskExecutorMaxSize(int taskExecutorMaxSize) {
+        this.taskExecutorMaxSize = taskExecutorMaxSize;
+    }
+
+    public int getTaskMaxInFlight() {
+        return taskMaxInFlight;
+    }
+
+    public void setTaskMaxInFlight(int taskMaxInFlight) {
+        this.taskMaxInFlight = taskMaxInFlight;
+    }
+
+    public TaskRejectPolicyEnum getTaskRejectPolicy() {
+        return taskRejectPolicy;
+    }
+
+    public void setTaskRejectPolicy(TaskRejectPolicyEnum taskRejectPolicy) {
+        this.taskRejectPolicy = taskRejectPolicy;
+    }
+
+    public int getTaskRejectRetryAfter() {
+        return taskRejectRetryAfter;
+    }
+
+    public void setTaskRejectRetryAfter(int taskRejectRetryAfter) {
+        this.taskRejectRetryAfter = taskRejectRetryAfter;
+    }
+
+    public int getMergeLingerMaxSize() {
+        return mergeLingerMaxSize;
+    }
+
+    public void setMergeLingerMaxSize(int mergeLingerMaxSize) {
+        this.mergeLingerMaxSize = mergeLingerMaxSize;
+    }
+
+    public boolean isServerVirtualThreads() {
+        return serverVirtualThreads;
+    }
+
+    public void setServerVirtualThreads(boolean serverVirtualThreads) {
+        this.serverVirtualThreads = serverVirtualThreads;
+    }
+
+    public int getServerVirtualMaxThreads() {
+        return serverVirtualMaxThreads;
+    }
+
+    public void setServerVirtualMaxThreads(int serverVirtualMaxThreads) {
+        this.serverVirtualMaxThreads = serverVirtualMaxThreads;
+    }
+
     public String getFileProxyTempCachePath() {
         return fileProxyTempCachePath;
     }
@@ -0,0 +1,149 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import org.eclipse.jetty.http.DateGenerator;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.server.Response;
+
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * 共享的响应头缓存，每次响应设置头信息时不再创建新的对象
+ * 1. Date 每秒只格式化一次
+ * 2. Server 和 Content-Type 预先生成好
+ */
+public class ResponseHeaders {
+
+    public static final HttpField NO_CACHE_CONTROL = new PreEncodedHttpField(HttpHeader.CACHE_CONTROL, "no-cache");
+    public static final HttpField NO_CACHE_EXPIRES = new PreEncodedHttpField(HttpHeader.EXPIRES, DateGenerator.__01Jan1970);
+    public static final HttpField NO_CACHE_PRAGMA = new PreEncodedHttpField(HttpHeader.PRAGMA, "no-cache");
+
+    public static final HttpField VARY_ACCEPT_ENCODING = new PreEncodedHttpField(HttpHeader.VARY, "Accept-Encoding");
+    public static final HttpField CONTENT_ENCODING_GZIP = new PreEncodedHttpField(HttpHeader.CONTENT_ENCODING, CompressUtils.GZIP);
+    public static final HttpField CONTENT_ENCODING_DEFLATE = new PreEncodedHttpField(HttpHeader.CONTENT_ENCODING, CompressUtils.DEFLATE);
+
+    private static volatile DateField dateField = new DateField(System.currentTimeMillis() / 1000);
+    private static volatile HttpField serverField = new PreEncodedHttpField(HttpHeader.SERVER, FrameworkConfig.getInstance().getResponseServerName());
+
+    //contentType -> contentType + charset
+    private static final Map<String, ContentTypeValue> contentTypeCache = new ConcurrentHashMap<>();
+
+
+    /**
+     * 优先直接放入Jetty的HttpFields，被包装过的response退化为setHeader
+     */
+    public static void setHeader(HttpServletResponse response, HttpField field) {
+        if (response instanceof Response) {
+            ((Response) response).getHttpFields().put(field);
+        } else {
+            response.setHeader(field.getName(), field.getValue());
+        }
+    }
+
+
+    /**
+     * 在已有的Vary上加上Accept-Encoding，不覆盖Aspect或Controller设置的值(如CORS的Vary: Origin)
+     */
+    public static void addVaryAcceptEncoding(HttpServletResponse response) {
+        Collection<String> varyValues = response.getHeaders(HttpHeader.VARY.asString());
+        if (varyValues == null || varyValues.isEmpty()) {
+            setHeader(response, VARY_ACCEPT_ENCODING);
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String varyValue : varyValues) {
+            for (String token : varyValue.split(",")) {
+                token = token.trim();
+                if ("*".equals(token) || "Accept-Encoding".equalsIgnoreCase(token)) {
+                    return;
+                }
+            }
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(varyValue.trim());
+        }
+        sb.append(", Accept-Encoding");
+        response.setHeader(HttpHeader.VARY.asString(), sb.toString());
+    }
+
+
+    public static HttpField toContentEncodingField(String contentEncoding) {
+        if (CompressUtils.GZIP.equals(contentEncoding)) {
+            return CONTENT_ENCODING_GZIP;
+        }
+        if (CompressUtils.DEFLATE.equals(contentEncoding)) {
+            return CONTENT_ENCODING_DEFLATE;
+        }
+        return new HttpField(HttpHeader.CONTENT_ENCODING, contentEncoding);
+    }
+
+
+    //当前秒的Date头，过了一秒才重新生成
+    public static HttpField getDateField() {
+        long second = System.currentTimeMillis() / 1000;
+        DateField dateField = ResponseHeaders.dateField;
+        if (dateField.second != second) {
+            dateField = new DateField(second);
+            ResponseHeaders.dateField = dateField;
+        }
+        return dateField.field;
+    }
+
+
+    //FrameworkConfig中修改了ServerName后会重新生成
+    public static HttpField getServerField() {
+        HttpField serverField = ResponseHeaders.serverField;
+        String serverName = FrameworkConfig.getInstance().getResponseServerName();
+        if (!serverField.getValue().equals(serverName)) {
+            serverField = new PreEncodedHttpField(HttpHeader.SERVER, serverName);
+            ResponseHeaders.serverField = serverField;
+        }
+        return serverField;
+    }
+
+
+    /**
+     * @param contentType 例如 application/json
+     * @return 带有FrameworkConfig中字符集的Content-Type，例如 application/json;charset=utf-8
+     */
+    public static String getContentTypeWithCharset(String contentType) {
+        Charset charset = FrameworkConfig.getInstance().getCharset();
+        ContentTypeValue value = contentTypeCache.get(contentType);
+        if (value == null || value.charset != charset) {
+            //与Jetty的MimeTypes缓存中的格式一致，Jetty可以直接使用预先编码好的头
+            value = new ContentTypeValue(charset, contentType + ";charset=" + charset.name().toLowerCase());
+            contentTypeCache.put(contentType, value);
+        }
+        return value.value;
+    }
+
+
+    private static class DateField {
+        private final long second;
+        private final HttpField field;
+
+        DateField(long second) {
+            this.second = second;
+            this.field = new PreEncodedHttpField(HttpHeader.DATE, DateGenerator.formatDate(second * 1000));
+        }
+    }
+
+
+    private static class ContentTypeValue {
+        private final Charset charset;
+        private final String value;
+
+        ContentTypeValue(Charset charset, String value) {
+            this.charset = charset;
+            this.value = value;
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package cn.ubibi.jettyboot.framework.commons;
 
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 
@@ -35,4 +41,65 @@ public class ResponseUtils {
         }
     }
 
+
+
+    /**
+     * 按FrameworkConfig中的长连接策略设置Connection头，需要在写出内容之前调用。
+     * 默认保持长连接，由Jetty处理HTTP/1.0和客户端要求关闭的情况。
+     */
+    public static void setConnectionHeader(ServletRequest request, HttpServletResponse response) {
+        FrameworkConfig frameworkConfig = FrameworkConfig.getInstance();
+        if (!frameworkConfig.isKeepAlive()) {
+            response.setHeader(HttpHeader.CONNECTION.asString(), "close");
+            return;
+        }
+
+        int maxRequests = frameworkConfig.getMaxRequestsPerConnection();
+        if (maxRequests > 0) {
+            Request baseRequest = Request.getBaseRequest(request);
+            HttpChannel httpChannel = baseRequest == null ? null : baseRequest.getHttpChannel();
+            if (httpChannel != null && httpChannel.getRequests() >= maxRequests) {
+                response.setHeader(HttpHeader.CONNECTION.asString(), "close");
+            }
+        }
+    }
+
+
+    /**
+     * 304 Not Modified，没有内容
+     */
+    public static void sendNotModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        response.setHeader("ETag", etag);
+        ResponseHeaders.setHeader(response, ResponseHeaders.getServerField());
+        ResponseHeaders.setHeader(response, ResponseHeaders.getDateField());
+        setConnectionHeader(request, response);
+        tryClose(response);
+    }
+
+
+    /**
+     * 503 Service Unavailable，告诉客户端多少秒后重试
+     */
+    public static void sendServiceUnavailable(HttpServletResponse response, int retryAfterSeconds) {
+        if (response.isCommitted()) {
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        if (retryAfterSeconds > 0) {
+            response.setHeader(HttpHeader.RETRY_AFTER.asString(), String.valueOf(retryAfterSeconds));
+        }
+        response.setContentLength(0);
+        ResponseHeaders.setHeader(response, ResponseHeaders.getServerField());
+        ResponseHeaders.setHeader(response, ResponseHeaders.getDateField());
+    }
+
+
+    //出错之后连接的状态不确定，不再复用
+    public static void setConnectionClose(HttpServletResponse response) {
+        if (!response.isCommitted()) {
+            response.setHeader(HttpHeader.CONNECTION.asString(), "close");
+        }
+    }
+
 }
@@ -0,0 +1,40 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+
+
+/**
+ * 根据FrameworkConfig.taskExecutorType创建执行合并任务和阻塞任务的线程池
+ */
+public class TaskExecutors {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskExecutors.class);
+
+
+    public static Executor createExecutor() {
+        FrameworkConfig frameworkConfig = FrameworkConfig.getInstance();
+        return createExecutor(frameworkConfig.getTaskExecutorType(), frameworkConfig.getTaskExecutorCoreSize(), frameworkConfig.getTaskExecutorMaxSize());
+    }
+
+
+    public static Executor createExecutor(ExecutorTypeEnum executorType, int coreSize, int maxSize) {
+
+        if (executorType == ExecutorTypeEnum.VIRTUAL_THREAD) {
+            ExecutorService executorService = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            if (executorService != null) {
+                return executorService;
+            }
+            LOGGER.info("VirtualThread not support , using " + ExecutorTypeEnum.HANDOFF_POOL);
+        }
+
+        if (executorType == ExecutorTypeEnum.FIXED_QUEUE) {
+            return new ThreadPoolExecutor(coreSize, maxSize, 5L, TimeUnit.MINUTES, new LinkedBlockingQueue<Runnable>(10000));
+        }
+
+        //线程用完时抛出RejectedExecutionException，由AsyncContextTaskManager按taskRejectPolicy处理
+        return new ThreadPoolExecutor(coreSize, maxSize, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+    }
+}
@@ -0,0 +1,10 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+public enum TaskRejectPolicyEnum {
+
+    //立即返回503和Retry-After，结束所有等待这个任务的请求
+    SERVICE_UNAVAILABLE,
+
+    //在调用线程中执行，相当于退化为同步调用
+    CALLER_RUNS
+}
@@ -0,0 +1,70 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * 通过反射使用JDK21的虚拟线程，在Java 8上编译和运行时isSupported()返回false
+ */
+public class VirtualThreads {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private static final Method newVirtualThreadPerTaskExecutor;
+    private static final Method ofVirtual;
+    private static final Method unstarted;
+
+    static {
+        Method executorMethod = null;
+        Method ofVirtualMethod = null;
+        Method unstartedMethod = null;
+        try {
+            executorMethod = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+            unstartedMethod = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+        } catch (Exception e) {
+            executorMethod = null;
+        }
+        newVirtualThreadPerTaskExecutor = executorMethod;
+        ofVirtual = ofVirtualMethod;
+        unstarted = unstartedMethod;
+    }
+
+
+    public static boolean isSupported() {
+        return newVirtualThreadPerTaskExecutor != null;
+    }
+
+
+    //不支持时返回null
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            return null;
+        }
+        try {
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (Exception e) {
+            LOGGER.info("newVirtualThreadPerTaskExecutor failed , " + e.toString());
+            return null;
+        }
+    }
+
+
+    //创建一个未启动的虚拟线程，不支持时返回null
+    public static Thread newThread(Runnable runnable) {
+        if (!isSupported()) {
+            return null;
+        }
+        try {
+            Object builder = ofVirtual.invoke(null);
+            return (Thread) unstarted.invoke(builder, runnable);
+        } catch (Exception e) {
+            LOGGER.info("newVirtualThread failed , " + e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package cn.ubibi.jettyboot.framework.commons.cache;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * 有个数上限的并发缓存，读写都不加锁，超过上限时按加入的顺序淘汰最早的。
+ * <p>
+ * 同一个key重复put时，旧的记录留在队列中，轮到它时直接丢弃，所以有效的个数不会超过上限。
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<K, Node<K, V>> cacheMap = new ConcurrentHashMap<>();
+    private final Queue<Node<K, V>> insertionQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+
+    public BoundedCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+
+    public V get(K key) {
+        Node<K, V> node = cacheMap.get(key);
+        return node == null ? null : node.value;
+    }
+
+
+    public void put(K key, V value) {
+        Node<K, V> node = new Node<>(key, value);
+        cacheMap.put(key, node);
+        insertionQueue.add(node);
+
+        //超出上限的部分由put的线程淘汰
+        int size = queueSize.incrementAndGet();
+        while (size > maxSize) {
+            Node<K, V> eldest = insertionQueue.poll();
+            if (eldest == null) {
+                break;
+            }
+            size = queueSize.decrementAndGet();
+            if (cacheMap.remove(eldest.key, eldest)) {
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+
+    public void remove(K key) {
+        cacheMap.remove(key);
+    }
+
+
+    //只有当前的值还是value时才移除，不影响并发put的新值
+    public boolean remove(K key, V value) {
+        Node<K, V> node = cacheMap.get(key);
+        return node != null && node.value == value && cacheMap.remove(key, node);
+    }
+
+
+    public void clear() {
+        cacheMap.clear();
+    }
+
+
+    public int size() {
+        return cacheMap.size();
+    }
+
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+
+    private static class Node<K, V> {
+        private final K key;
+        private final V value;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -49,6 +49,13 @@ public class CacheAnnotationUtils {
 
 
     private static String toCacheKey(Method method, CacheMethod cacheAnnotation, Object[] params) {
+        String key = toCacheKeyPrefix(method, cacheAnnotation);
+        return toCacheKey(key, cacheAnnotation.paramKey(), params);
+    }
+
+
+    //缓存Key中不随参数变化的部分，可以预先计算好
+    public static String toCacheKeyPrefix(Method method, CacheMethod cacheAnnotation) {
 
         String cache_Key = cacheAnnotation.cacheKey();
 
@@ -56,10 +63,17 @@ public class CacheAnnotationUtils {
             cache_Key = method.getDeclaringClass().getSimpleName() + ":" + method.getName();
         }
 
+        return toCacheKeyPrefix(cache_Key);
+    }
+
+
+    public static String toCacheKeyPrefix(String cacheKey) {
+        return CACHE_KEY_PREFIX + cacheKey;
+    }
+
 
-        String key = CACHE_KEY_PREFIX + cache_Key;
+    public static String toCacheKey(String key, int[] paramsKey, Object[] params) {
 
-        int[] paramsKey = cacheAnnotation.paramKey();
         if (paramsKey.length == 0) {
             return key;
         }
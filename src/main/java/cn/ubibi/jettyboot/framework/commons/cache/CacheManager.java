@@ -114,6 +114,19 @@ public class CacheManager {
         }
     }
 
+
+    //删除所有以prefix开头的缓存
+    public static void removeObjectsByPrefix(String prefix) {
+        synchronized (CacheManager.lock) {
+            Iterator<String> iterator = cacheMap.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().startsWith(prefix)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
     /**
      * 判断是否已过期
      *
@@ -14,4 +14,13 @@ public @interface CacheMethod {
     String cacheKey() default "";
 
     int[] paramKey() default {};
+
+    /**
+     * 只对Controller方法有效：缓存渲染之后的响应(内容、压缩后的内容、ETag)，命中时直接输出。
+     * 命中时仍然执行Aspect的beforeInvoke，但不执行afterInvoke和afterRender。
+     * 只支持文本类的结果(String、JsonRender、TextRender、ScriptRender及普通对象)
+     *
+     * @see cn.ubibi.jettyboot.framework.rest.impl.ResponseCache
+     */
+    boolean cacheResponse() default false;
 }
\ No newline at end of file
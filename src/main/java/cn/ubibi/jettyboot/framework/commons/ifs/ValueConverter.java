@@ -0,0 +1,5 @@
+package cn.ubibi.jettyboot.framework.commons.ifs;
+
+public interface ValueConverter {
+    Object convert(Object value) throws Exception;
+}
@@ -0,0 +1,80 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+
+/**
+ * 方法的target和参数类型，生成的调用器只处理类型完全匹配的调用。
+ * 不匹配时(null传给基本类型、类型错误、需要基本类型拓宽等)交给Method.invoke，
+ * 由它抛出IllegalArgumentException或者做转换，调用方的错误不会被当成被调用方法的异常。
+ */
+class ArgumentTypes {
+
+    private final Class<?> targetClazz;      //静态方法为null
+    private final Class<?>[] paramClazzes;   //基本类型换成包装类型
+    private final boolean[] isPrimitives;
+
+
+    ArgumentTypes(Method method) {
+        this.targetClazz = Modifier.isStatic(method.getModifiers()) ? null : method.getDeclaringClass();
+
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        this.paramClazzes = new Class<?>[parameterTypes.length];
+        this.isPrimitives = new boolean[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            this.isPrimitives[i] = parameterTypes[i].isPrimitive();
+            this.paramClazzes[i] = toWrapperClazz(parameterTypes[i]);
+        }
+    }
+
+
+    boolean isExactMatch(Object target, Object[] params) {
+        if (targetClazz != null && !targetClazz.isInstance(target)) {
+            return false;
+        }
+        if (params.length != paramClazzes.length) {
+            return false;
+        }
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param == null) {
+                if (isPrimitives[i]) {
+                    return false;
+                }
+            } else if (isPrimitives[i] ? param.getClass() != paramClazzes[i] : !paramClazzes[i].isInstance(param)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static Class<?> toWrapperClazz(Class<?> clazz) {
+        if (!clazz.isPrimitive()) {
+            return clazz;
+        }
+        if (clazz == int.class) {
+            return Integer.class;
+        }
+        if (clazz == long.class) {
+            return Long.class;
+        }
+        if (clazz == boolean.class) {
+            return Boolean.class;
+        }
+        if (clazz == double.class) {
+            return Double.class;
+        }
+        if (clazz == float.class) {
+            return Float.class;
+        }
+        if (clazz == short.class) {
+            return Short.class;
+        }
+        if (clazz == byte.class) {
+            return Byte.class;
+        }
+        return Character.class;
+    }
+}
@@ -0,0 +1,134 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+
+/**
+ * 使用LambdaMetafactory为每个方法生成一个直接调用的类，JIT可以内联。
+ * 只支持public类的public实例方法，返回值不能是void，参数最多6个。
+ */
+class LambdaMethodInvoker implements MethodInvoker {
+
+    static final int MAX_PARAMS_COUNT = 6;
+
+    private static final Class[] INVOKER_INTERFACES = {
+            Invoker0.class, Invoker1.class, Invoker2.class, Invoker3.class,
+            Invoker4.class, Invoker5.class, Invoker6.class
+    };
+
+    private final Object invoker;
+    private final int paramsCount;
+    private final Method method;
+    private final ArgumentTypes argumentTypes;
+
+
+    LambdaMethodInvoker(Method method) throws Throwable {
+
+        this.paramsCount = method.getParameterCount();
+        this.method = method;
+        this.argumentTypes = new ArgumentTypes(method);
+
+        Class invokerInterface = INVOKER_INTERFACES[paramsCount];
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle implMethod = lookup.unreflect(method);
+
+        CallSite callSite = LambdaMetafactory.metafactory(
+                lookup,
+                "invoke",
+                MethodType.methodType(invokerInterface),
+                MethodType.genericMethodType(paramsCount + 1),
+                implMethod,
+                implMethod.type().wrap()
+        );
+
+        this.invoker = callSite.getTarget().invoke();
+    }
+
+
+    static boolean isSupport(Method method) {
+        if (method.getParameterCount() > MAX_PARAMS_COUNT || method.getReturnType() == Void.TYPE) {
+            return false;
+        }
+
+        Class<?> clazz = method.getDeclaringClass();
+        int modifiers = method.getModifiers();
+        if (Modifier.isStatic(modifiers) || !Modifier.isPublic(modifiers) || !Modifier.isPublic(clazz.getModifiers())) {
+            return false;
+        }
+
+        //生成的类由框架的ClassLoader加载，必须能看见目标类
+        try {
+            return Class.forName(clazz.getName(), false, LambdaMethodInvoker.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+
+    @Override
+    public Object invoke(Object target, Object[] params) throws Exception {
+        if (params == null) {
+            params = MethodInvokers.EMPTY_PARAMS;
+        }
+        if (!argumentTypes.isExactMatch(target, params)) {
+            return method.invoke(target, params);
+        }
+
+        try {
+            switch (paramsCount) {
+                case 0:
+                    return ((Invoker0) invoker).invoke(target);
+                case 1:
+                    return ((Invoker1) invoker).invoke(target, params[0]);
+                case 2:
+                    return ((Invoker2) invoker).invoke(target, params[0], params[1]);
+                case 3:
+                    return ((Invoker3) invoker).invoke(target, params[0], params[1], params[2]);
+                case 4:
+                    return ((Invoker4) invoker).invoke(target, params[0], params[1], params[2], params[3]);
+                case 5:
+                    return ((Invoker5) invoker).invoke(target, params[0], params[1], params[2], params[3], params[4]);
+                default:
+                    return ((Invoker6) invoker).invoke(target, params[0], params[1], params[2], params[3], params[4], params[5]);
+            }
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+
+    public interface Invoker0 {
+        Object invoke(Object target);
+    }
+
+    public interface Invoker1 {
+        Object invoke(Object target, Object p1);
+    }
+
+    public interface Invoker2 {
+        Object invoke(Object target, Object p1, Object p2);
+    }
+
+    public interface Invoker3 {
+        Object invoke(Object target, Object p1, Object p2, Object p3);
+    }
+
+    public interface Invoker4 {
+        Object invoke(Object target, Object p1, Object p2, Object p3, Object p4);
+    }
+
+    public interface Invoker5 {
+        Object invoke(Object target, Object p1, Object p2, Object p3, Object p4, Object p5);
+    }
+
+    public interface Invoker6 {
+        Object invoke(Object target, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6);
+    }
+}
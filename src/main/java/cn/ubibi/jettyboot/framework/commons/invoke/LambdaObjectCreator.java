@@ -0,0 +1,69 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+
+/**
+ * 使用LambdaMetafactory生成 Supplier，相当于直接 new
+ */
+class LambdaObjectCreator implements ObjectCreator {
+
+    private final Supplier<Object> supplier;
+
+    LambdaObjectCreator(Class<?> clazz) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle implMethod = lookup.unreflectConstructor(clazz.getConstructor());
+
+        CallSite callSite = LambdaMetafactory.metafactory(
+                lookup,
+                "get",
+                MethodType.methodType(Supplier.class),
+                MethodType.methodType(Object.class),
+                implMethod,
+                MethodType.methodType(clazz)
+        );
+
+        this.supplier = (Supplier<Object>) callSite.getTarget().invoke();
+    }
+
+
+    static boolean isSupport(Class<?> clazz) {
+        int modifiers = clazz.getModifiers();
+        if (!Modifier.isPublic(modifiers) || Modifier.isAbstract(modifiers) || clazz.isInterface()) {
+            return false;
+        }
+
+        //非静态的内部类没有无参构造函数
+        if (clazz.getEnclosingClass() != null && !Modifier.isStatic(modifiers)) {
+            return false;
+        }
+
+        try {
+            Constructor<?> constructor = clazz.getConstructor();
+            if (!Modifier.isPublic(constructor.getModifiers())) {
+                return false;
+            }
+            return Class.forName(clazz.getName(), false, LambdaObjectCreator.class.getClassLoader()) == clazz;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+
+    @Override
+    public Object newInstance() throws Exception {
+        try {
+            return supplier.get();
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+}
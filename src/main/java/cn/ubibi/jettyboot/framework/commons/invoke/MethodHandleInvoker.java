@@ -0,0 +1,54 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+
+/**
+ * 统一成 (Object target, Object[] params) -> Object 的MethodHandle
+ */
+class MethodHandleInvoker implements MethodInvoker {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final MethodHandle methodHandle;
+    private final Method method;
+    private final ArgumentTypes argumentTypes;
+
+    MethodHandleInvoker(Method method) throws IllegalAccessException {
+        if (!method.isAccessible()) {
+            method.setAccessible(true);
+        }
+
+        MethodHandle mh = MethodHandles.lookup().unreflect(method);
+
+        //静态方法忽略target
+        if (Modifier.isStatic(method.getModifiers())) {
+            mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        }
+
+        this.method = method;
+        this.argumentTypes = new ArgumentTypes(method);
+        this.methodHandle = mh.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE);
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] params) throws Exception {
+        if (params == null) {
+            params = MethodInvokers.EMPTY_PARAMS;
+        }
+        if (!argumentTypes.isExactMatch(target, params)) {
+            return method.invoke(target, params);
+        }
+
+        try {
+            return methodHandle.invokeExact(target, params);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+class MethodHandleObjectCreator implements ObjectCreator {
+
+    private static final MethodType CREATOR_TYPE = MethodType.methodType(Object.class);
+
+    private final MethodHandle constructorHandle;
+
+    MethodHandleObjectCreator(Class<?> clazz) throws Exception {
+        Constructor<?> constructor = clazz.getDeclaredConstructor();
+        if (!constructor.isAccessible()) {
+            constructor.setAccessible(true);
+        }
+        this.constructorHandle = MethodHandles.lookup().unreflectConstructor(constructor).asType(CREATOR_TYPE);
+    }
+
+    @Override
+    public Object newInstance() throws Exception {
+        try {
+            return constructorHandle.invokeExact();
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+}
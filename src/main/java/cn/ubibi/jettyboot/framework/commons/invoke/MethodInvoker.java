@@ -0,0 +1,13 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+
+/**
+ * 方法调用器，与Method.invoke的约定相同:
+ * 被调用方法抛出的异常会被包装成InvocationTargetException，
+ * target或参数的类型不对(包括null传给基本类型)时抛出IllegalArgumentException
+ */
+public interface MethodInvoker {
+
+    Object invoke(Object target, Object[] params) throws Exception;
+
+}
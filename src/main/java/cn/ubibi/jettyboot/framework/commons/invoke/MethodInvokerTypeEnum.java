@@ -0,0 +1,13 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+public enum MethodInvokerTypeEnum {
+
+    //Method.invoke
+    REFLECTION,
+
+    //MethodHandle
+    METHOD_HANDLE,
+
+    //LambdaMetafactory生成的调用类，不支持时使用MethodHandle
+    LAMBDA
+}
@@ -0,0 +1,87 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * 获取方法的调用器，调用方式由 FrameworkConfig.methodInvokerType 决定
+ */
+public class MethodInvokers {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodInvokers.class);
+
+    static final Object[] EMPTY_PARAMS = new Object[0];
+
+    private static final Map<Method, MethodInvoker> methodInvokerCache = new ConcurrentHashMap<>();
+
+
+    public static MethodInvoker getMethodInvoker(Method method) {
+        MethodInvoker methodInvoker = methodInvokerCache.get(method);
+        if (methodInvoker == null) {
+            methodInvoker = createMethodInvoker(method, FrameworkConfig.getInstance().getMethodInvokerType());
+            methodInvokerCache.put(method, methodInvoker);
+        }
+        return methodInvoker;
+    }
+
+
+    public static ObjectCreator createObjectCreator(Class<?> clazz) {
+        return createObjectCreator(clazz, FrameworkConfig.getInstance().getMethodInvokerType());
+    }
+
+
+    public static ObjectCreator createObjectCreator(Class<?> clazz, MethodInvokerTypeEnum invokerType) {
+
+        if (invokerType == MethodInvokerTypeEnum.LAMBDA && LambdaObjectCreator.isSupport(clazz)) {
+            try {
+                return new LambdaObjectCreator(clazz);
+            } catch (Throwable e) {
+                LOGGER.info("LambdaObjectCreator not support " + clazz + " , " + e.toString());
+            }
+        }
+
+        if (invokerType != MethodInvokerTypeEnum.REFLECTION) {
+            try {
+                return new MethodHandleObjectCreator(clazz);
+            } catch (Throwable e) {
+                LOGGER.info("MethodHandleObjectCreator not support " + clazz + " , " + e.toString());
+            }
+        }
+
+        return new ReflectObjectCreator(clazz);
+    }
+
+
+    //修改调用方式后，已经创建的调用器需要清除
+    public static void clearCache() {
+        methodInvokerCache.clear();
+    }
+
+
+    public static MethodInvoker createMethodInvoker(Method method, MethodInvokerTypeEnum invokerType) {
+
+        if (invokerType == MethodInvokerTypeEnum.LAMBDA && LambdaMethodInvoker.isSupport(method)) {
+            try {
+                return new LambdaMethodInvoker(method);
+            } catch (Throwable e) {
+                LOGGER.info("LambdaMethodInvoker not support " + method + " , " + e.toString());
+            }
+        }
+
+        if (invokerType != MethodInvokerTypeEnum.REFLECTION) {
+            try {
+                return new MethodHandleInvoker(method);
+            } catch (Throwable e) {
+                LOGGER.info("MethodHandleInvoker not support " + method + " , " + e.toString());
+            }
+        }
+
+        return new ReflectMethodInvoker(method);
+    }
+}
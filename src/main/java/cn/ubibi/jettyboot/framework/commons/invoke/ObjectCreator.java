@@ -0,0 +1,11 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+
+/**
+ * 使用无参构造函数创建对象
+ */
+public interface ObjectCreator {
+
+    Object newInstance() throws Exception;
+
+}
@@ -0,0 +1,20 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+import java.lang.reflect.Method;
+
+class ReflectMethodInvoker implements MethodInvoker {
+
+    private final Method method;
+
+    ReflectMethodInvoker(Method method) {
+        this.method = method;
+        if (!method.isAccessible()) {
+            method.setAccessible(true);
+        }
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] params) throws Exception {
+        return method.invoke(target, params);
+    }
+}
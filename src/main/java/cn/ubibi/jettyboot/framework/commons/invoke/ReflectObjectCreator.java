@@ -0,0 +1,15 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+class ReflectObjectCreator implements ObjectCreator {
+
+    private final Class<?> clazz;
+
+    ReflectObjectCreator(Class<?> clazz) {
+        this.clazz = clazz;
+    }
+
+    @Override
+    public Object newInstance() throws Exception {
+        return clazz.newInstance();
+    }
+}
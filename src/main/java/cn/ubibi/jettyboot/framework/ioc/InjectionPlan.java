@@ -0,0 +1,115 @@
+package cn.ubibi.jettyboot.framework.ioc;
+
+import cn.ubibi.jettyboot.framework.commons.BeanField;
+import cn.ubibi.jettyboot.framework.commons.BeanFieldUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * 一个类的依赖注入计划，只包含有 Autowired 注解的字段（含父类字段）。
+ * 字段的读写使用预先生成的MethodHandle，依赖的Service第一次注入时查找并缓存，
+ * 之后每次注入新对象不再扫描字段和查找Service。
+ */
+public class InjectionPlan {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?>[] fieldTypes;
+    private final MethodHandle[] getters;
+    private final MethodHandle[] setters;
+
+    //依赖的Service，第一次用到时查找，查找结果是幂等的
+    private final Object[] services;
+
+
+    InjectionPlan(Class<?> clazz) throws IllegalAccessException {
+
+        List<Field> fields = new ArrayList<>();
+        for (BeanField beanField : BeanFieldUtils.getBeanFields(clazz)) {
+            //有注解，Autowired注解可被继承
+            if (beanField.getField().getAnnotation(Autowired.class) != null) {
+                fields.add(beanField.getField());
+            }
+        }
+
+        int size = fields.size();
+        this.fieldTypes = new Class<?>[size];
+        this.getters = new MethodHandle[size];
+        this.setters = new MethodHandle[size];
+        this.services = new Object[size];
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (int i = 0; i < size; i++) {
+            Field field = fields.get(i);
+            if (!field.isAccessible()) {
+                field.setAccessible(true);
+            }
+            this.fieldTypes[i] = field.getType();
+            this.getters[i] = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+            this.setters[i] = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        }
+    }
+
+
+    public boolean isEmpty() {
+        return fieldTypes.length == 0;
+    }
+
+
+    /**
+     * 为对象注入依赖，只会自动注入null的字段
+     */
+    public void inject(Object bean) throws Exception {
+        Object[] services = this.services;
+        for (int i = 0; i < services.length; i++) {
+            if (getFieldValue(i, bean) == null) {
+
+                Object service = services[i];
+                if (service == null) {
+                    service = resolveService(i);
+                }
+                setFieldValue(i, bean, service);
+
+                //放在set后面，允许循环依赖，只要调用不循环就行。
+                ServiceManager.getInstance().injectDependency(service);
+            }
+        }
+    }
+
+
+    private Object getFieldValue(int index, Object bean) throws Exception {
+        try {
+            return getters[index].invokeExact(bean);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+
+    private void setFieldValue(int index, Object bean, Object value) throws Exception {
+        try {
+            setters[index].invokeExact(bean, value);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+
+    //Service查找到之后缓存起来，找不到就报错
+    private Object resolveService(int index) throws Exception {
+        Object service = ServiceManager.getInstance().getServiceInner(fieldTypes[index]);
+        if (service == null) {
+            throw new Exception("ServiceNotFound :" + fieldTypes[index].getName());
+        }
+        services[index] = service;
+        return service;
+    }
+}
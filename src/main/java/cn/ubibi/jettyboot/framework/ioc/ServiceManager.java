@@ -1,17 +1,15 @@
 package cn.ubibi.jettyboot.framework.ioc;
 
-import cn.ubibi.jettyboot.framework.commons.BeanField;
-import cn.ubibi.jettyboot.framework.commons.BeanFieldUtils;
-import cn.ubibi.jettyboot.framework.commons.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.Proxy;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ServiceManager {
 
@@ -27,73 +25,136 @@ public class ServiceManager {
     }
 
 
-    private List<Object> realServiceList = new ArrayList<>();
-    private List<Object> proxyServiceList = new ArrayList<>();
-    private Map<Object, Object> proxyRealServiceMap = new HashMap<>();
+    //类型 -> Service，类型包括Service的所有父类，先注册的优先
+    private final Map<Class<?>, Object> realServiceIndex = new ConcurrentHashMap<>();
 
-    public void addService(Object realServiceObject) {
+    //接口 -> 代理对象，接口包括所有父接口，先注册的优先
+    private final Map<Class<?>, Object> proxyServiceIndex = new ConcurrentHashMap<>();
+
+    //类 -> 注入计划
+    private final Map<Class<?>, InjectionPlan> injectionPlanMap = new ConcurrentHashMap<>();
+
+    //以下两个Map只在addService时写时复制，读的时候不需要加锁
+    private volatile Map<Object, Object> proxyRealServiceMap = new IdentityHashMap<>();
+
+    //Service -> 是否已经完全注入，只记录addService注册的单例，其他对象每次都按注入计划注入
+    private volatile Map<Object, AtomicBoolean> serviceInjectedFlags = new IdentityHashMap<>();
+
+    //只在启动时注入一次的单例(单例Controller、Aspect、HttpParsedRequestFactory)，addService时重新注入
+    private final List<Object> singletonObjects = new CopyOnWriteArrayList<>();
+
+
+    /**
+     * 注册Service。启动之后注册的Service会重新注入到已经创建的单例中(只注入还是null的字段)，
+     * 原来因为找不到这个Service而注入失败的单例可以继续使用，已经注入的字段不会被替换。
+     */
+    public synchronized void addService(Object realServiceObject) {
         if (realServiceObject == null) {
             return;
         }
-        realServiceList.add(realServiceObject);
-        LOGGER.info("addService:" + realServiceObject.getClass().getName());
+
+        Class<?> serviceClass = realServiceObject.getClass();
+        for (Class<?> clazz = serviceClass; clazz != null; clazz = clazz.getSuperclass()) {
+            realServiceIndex.putIfAbsent(clazz, realServiceObject);
+        }
+        LOGGER.info("addService:" + serviceClass.getName());
+
+        Map<Object, AtomicBoolean> serviceInjectedFlags2 = new IdentityHashMap<>(this.serviceInjectedFlags);
+        serviceInjectedFlags2.put(realServiceObject, new AtomicBoolean(false));
+        this.serviceInjectedFlags = serviceInjectedFlags2;
 
 
         //add interface
-        Class<?>[] interfaces = realServiceObject.getClass().getInterfaces();
+        Class<?>[] interfaces = serviceClass.getInterfaces();
         if (interfaces != null && interfaces.length > 0) {
-            ClassLoader classLoader = realServiceObject.getClass().getClassLoader();
+            ClassLoader classLoader = serviceClass.getClassLoader();
             Object proxyServiceObject = Proxy.newProxyInstance(classLoader, interfaces, new ServiceProxyHandler(realServiceObject));
-            proxyServiceList.add(proxyServiceObject);
-            proxyRealServiceMap.put(proxyServiceObject, realServiceObject);
-        }
 
+            for (Class<?> interfaceClass : interfaces) {
+                addProxyServiceIndex(interfaceClass, proxyServiceObject);
+            }
+
+            Map<Object, Object> proxyRealServiceMap2 = new IdentityHashMap<>(this.proxyRealServiceMap);
+            proxyRealServiceMap2.put(proxyServiceObject, realServiceObject);
+            this.proxyRealServiceMap = proxyRealServiceMap2;
+        }
 
+        reinjectSingletons();
     }
 
 
-    //执行注入依赖的过程
-    public void injectDependency(Object serviceObject) throws Exception {
+    /**
+     * 为只注入一次的单例注入依赖，并记录下来，之后addService时会再注入一次
+     */
+    public void injectSingleton(Object singletonObject) throws Exception {
+        if (singletonObject == null) {
+            return;
+        }
+        if (!containsSingleton(singletonObject)) {
+            singletonObjects.add(singletonObject);
+        }
+        injectDependency(singletonObject);
+    }
 
-        Object realServiceObject = getRealServiceObject(serviceObject);
 
+    private boolean containsSingleton(Object singletonObject) {
+        for (Object object : singletonObjects) {
+            if (object == singletonObject) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        //获取连同父类的字段,这样就能够连同继承的父类的字段也可以注入了。
-        List<BeanField> beanFields = BeanFieldUtils.getBeanFields(realServiceObject.getClass());
 
+    private void reinjectSingletons() {
+        for (Object singletonObject : singletonObjects) {
+            try {
+                injectDependency(singletonObject);
+            } catch (Exception e) {
+                //还缺少其他Service，等之后的addService或者请求时再试
+                LOGGER.info("reinject " + singletonObject.getClass().getName() + " : " + e.getMessage());
+            }
+        }
+    }
 
-        if (!CollectionUtils.isEmpty(beanFields)) {
 
-            for (BeanField beanField : beanFields) {
+    private void addProxyServiceIndex(Class<?> interfaceClass, Object proxyServiceObject) {
+        proxyServiceIndex.putIfAbsent(interfaceClass, proxyServiceObject);
+        for (Class<?> superInterface : interfaceClass.getInterfaces()) {
+            addProxyServiceIndex(superInterface, proxyServiceObject);
+        }
+    }
 
-                Field field = beanField.getField();
 
-                //有注解，Autowired注解可被继承
-                Autowired autowired = field.getAnnotation(Autowired.class);
-                if (autowired != null) {
+    //执行注入依赖的过程
+    public void injectDependency(Object serviceObject) throws Exception {
 
-                    //只会自动注入null的字段
-                    Object filedValue = beanField.getBeanValue(realServiceObject);
-                    if (filedValue == null) {
+        Object realServiceObject = getRealServiceObject(serviceObject);
 
+        //已经完全注入过的Service
+        AtomicBoolean injectedFlag = serviceInjectedFlags.get(realServiceObject);
+        if (injectedFlag != null && injectedFlag.get()) {
+            return;
+        }
 
-                        Object service = findServiceByField(field);
-                        if (service != null) {
+        //获取连同父类的字段,这样就能够连同继承的父类的字段也可以注入了。
+        InjectionPlan injectionPlan = getInjectionPlan(realServiceObject.getClass());
+        injectionPlan.inject(realServiceObject);
 
-                            beanField.setBeanValue(realServiceObject, service);
-//                            markBeanObjectFieldSettled(beanObject,beanField);
+        if (injectedFlag != null) {
+            injectedFlag.set(true);
+        }
+    }
 
-                            //放在set后面，允许循环依赖，只要调用不循环就行。
-                            injectDependency(service);
 
-                        } else {
-                            throw new Exception("ServiceNotFound :" + field.getType().getName());
-                        }
-                    }
-                }
-            }
+    public InjectionPlan getInjectionPlan(Class<?> clazz) throws Exception {
+        InjectionPlan injectionPlan = injectionPlanMap.get(clazz);
+        if (injectionPlan == null) {
+            injectionPlan = new InjectionPlan(clazz);
+            injectionPlanMap.put(clazz, injectionPlan);
         }
-
+        return injectionPlan;
     }
 
 
@@ -106,12 +167,6 @@ public class ServiceManager {
     }
 
 
-    private Object findServiceByField(Field field) throws Exception {
-        Class<?> fieldType = field.getType();
-        return getServiceInner(fieldType);
-    }
-
-
     public Object getService(Class<?> type) throws Exception {
         Object serviceObj = getServiceInner(type);
         if (serviceObj == null) {
@@ -122,27 +177,12 @@ public class ServiceManager {
     }
 
 
-    private Object getServiceInner(Class<?> type) {
-
+    Object getServiceInner(Class<?> type) {
         //通过接口获取对对象是代理对象
         if (type.isInterface()) {
-
-            for (Object service : this.proxyServiceList) {
-                if (type.isInstance(service)) {
-                    return service;
-                }
-            }
-
-        } else {
-            for (Object service : this.realServiceList) {
-                if (type.isInstance(service)) {
-                    return service;
-                }
-            }
+            return proxyServiceIndex.get(type);
         }
-
-
-        return null;
+        return realServiceIndex.get(type);
     }
 
 }
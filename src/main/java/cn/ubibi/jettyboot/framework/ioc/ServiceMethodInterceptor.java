@@ -0,0 +1,11 @@
+package cn.ubibi.jettyboot.framework.ioc;
+
+
+/**
+ * Service方法调用链上的一环：缓存、事务、调用
+ */
+interface ServiceMethodInterceptor {
+
+    Object invoke(Object target, Object[] params) throws Exception;
+
+}
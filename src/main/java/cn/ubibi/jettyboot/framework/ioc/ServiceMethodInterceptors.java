@@ -0,0 +1,118 @@
+package cn.ubibi.jettyboot.framework.ioc;
+
+import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
+import cn.ubibi.jettyboot.framework.commons.cache.CacheAnnotationUtils;
+import cn.ubibi.jettyboot.framework.commons.cache.CacheManager;
+import cn.ubibi.jettyboot.framework.commons.cache.CacheMethod;
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvokers;
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvoker;
+import cn.ubibi.jettyboot.framework.jdbc.ConnectionFactory;
+import cn.ubibi.jettyboot.framework.jdbc.utils.TransactionUtil;
+import cn.ubibi.jettyboot.framework.jdbc.utils.Transactional;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * 为每个Service方法生成一次调用链：缓存 -> 事务 -> 调用。
+ * 没有注解的方法只有调用这一环。
+ */
+class ServiceMethodInterceptors {
+
+
+    static ServiceMethodInterceptor toInterceptorChain(Method method) {
+
+        ServiceMethodInterceptor chain = new InvokeInterceptor(MethodInvokers.getMethodInvoker(method));
+
+        Transactional trans = method.getDeclaredAnnotation(Transactional.class);
+        if (trans != null) {
+            chain = new TransactionalInterceptor(chain, trans.connectionFactoryName());
+        }
+
+        CacheMethod cacheAnnotation = method.getDeclaredAnnotation(CacheMethod.class);
+        if (cacheAnnotation != null) {
+            chain = new CacheInterceptor(chain, method, cacheAnnotation);
+        }
+
+        return chain;
+    }
+
+
+    //先从缓存里取，取不到再调用并保存结果
+    private static class CacheInterceptor implements ServiceMethodInterceptor {
+
+        private final ServiceMethodInterceptor next;
+        private final String cacheKeyPrefix;
+        private final int[] paramsKey;
+        private final long activeTime;
+
+        CacheInterceptor(ServiceMethodInterceptor next, Method method, CacheMethod cacheAnnotation) {
+            this.next = next;
+            this.cacheKeyPrefix = CacheAnnotationUtils.toCacheKeyPrefix(method, cacheAnnotation);
+            this.paramsKey = cacheAnnotation.paramKey();
+            this.activeTime = cacheAnnotation.activeTime();
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] params) throws Exception {
+            String key = CacheAnnotationUtils.toCacheKey(cacheKeyPrefix, paramsKey, params);
+            Object invokeResult = CacheManager.getObject(key);
+            if (invokeResult == null) {
+                invokeResult = next.invoke(target, params);
+                CacheManager.putObject(key, invokeResult, activeTime);
+            }
+            return invokeResult;
+        }
+    }
+
+
+    //处理事务Transactional注解
+    private static class TransactionalInterceptor implements ServiceMethodInterceptor {
+
+        private final ServiceMethodInterceptor next;
+        private final String connectionFactoryName;
+
+        TransactionalInterceptor(ServiceMethodInterceptor next, String connectionFactoryName) {
+            this.next = next;
+            this.connectionFactoryName = connectionFactoryName;
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] params) throws Exception {
+
+            //前置条件，需要在启动时，执行FrameworkConfig.getInstance().addConnectionFactory
+            ConnectionFactory connectionFactory = FrameworkConfig.getInstance().getConnectionFactory(connectionFactoryName);
+            if (connectionFactory == null) {
+                throw new Exception("failed to getConnectionFactory, name is " + connectionFactoryName);
+            }
+
+            Object invokeResult;
+            TransactionUtil.beginTransaction(connectionFactory);
+            try {
+                invokeResult = next.invoke(target, params);
+                TransactionUtil.commitTransaction();
+            } catch (Exception e) {
+                TransactionUtil.rollbackTransaction();
+                throw e;
+            } finally {
+                TransactionUtil.endTransaction();
+            }
+            return invokeResult;
+        }
+    }
+
+
+    private static class InvokeInterceptor implements ServiceMethodInterceptor {
+
+        private final MethodInvoker methodInvoker;
+
+        InvokeInterceptor(MethodInvoker methodInvoker) {
+            this.methodInvoker = methodInvoker;
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] params) throws Exception {
+            return methodInvoker.invoke(target, params);
+        }
+    }
+}
@@ -1,72 +1,30 @@
 package cn.ubibi.jettyboot.framework.ioc;
 
-import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
-import cn.ubibi.jettyboot.framework.commons.cache.CacheAnnotationUtils;
-import cn.ubibi.jettyboot.framework.jdbc.ConnectionFactory;
-import cn.ubibi.jettyboot.framework.jdbc.utils.TransactionUtil;
-import cn.ubibi.jettyboot.framework.jdbc.utils.Transactional;
-
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ServiceProxyHandler implements InvocationHandler {
 
 
     private Object realServiceObject;
 
+    //每个方法的调用链只解析一次
+    private final Map<Method, ServiceMethodInterceptor> interceptorChainMap = new ConcurrentHashMap<>();
+
     public ServiceProxyHandler(Object realServiceObject) {
         this.realServiceObject = realServiceObject;
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] paramsObjects) throws Throwable {
-
-        //先从缓存里取
-        Object invokeResult = CacheAnnotationUtils.getResultFromCacheAnnotation(method, paramsObjects);
-        if (invokeResult == null) {
-            invokeResult = handleTransactional(method, paramsObjects);
-            CacheAnnotationUtils.saveResultToCacheAnnotation(method, paramsObjects, invokeResult);
+        ServiceMethodInterceptor interceptorChain = interceptorChainMap.get(method);
+        if (interceptorChain == null) {
+            interceptorChain = ServiceMethodInterceptors.toInterceptorChain(method);
+            interceptorChainMap.put(method, interceptorChain);
         }
-
-        return invokeResult;
+        return interceptorChain.invoke(this.realServiceObject, paramsObjects);
     }
 
-
-    //处理事务Transactional注解
-    private Object handleTransactional(Method method, Object[] paramsObjects) throws Exception {
-
-        Object invokeResult;
-        Transactional trans = method.getDeclaredAnnotation(Transactional.class);
-        if (trans != null) {
-            String connectionFactoryName = trans.connectionFactoryName();
-            //前置条件，徐涛在启动时，执行FrameworkConfig.getInstance().addConnectionFactory
-            ConnectionFactory connectionFactory = FrameworkConfig.getInstance().getConnectionFactory(connectionFactoryName);
-            if (connectionFactory == null) {
-                throw new Exception("failed to getConnectionFactory, name is " + connectionFactoryName);
-            }
-            TransactionUtil.beginTransaction(connectionFactory);
-            try {
-                invokeResult = handleOther(method, paramsObjects);
-                TransactionUtil.commitTransaction();
-            } catch (Exception e) {
-                TransactionUtil.rollbackTransaction();
-                throw e;
-            } finally {
-                TransactionUtil.endTransaction();
-            }
-
-        } else {
-            invokeResult = handleOther(method, paramsObjects);
-        }
-
-        return invokeResult;
-    }
-
-
-    private Object handleOther(Method method, Object[] paramsObjects) throws Exception {
-        Object invokeResult = method.invoke(this.realServiceObject, paramsObjects);
-        return invokeResult;
-    }
-
-
 }
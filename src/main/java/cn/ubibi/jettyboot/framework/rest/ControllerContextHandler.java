@@ -158,14 +158,18 @@ public class ControllerContextHandler extends ContextHandler {
 
 
     public void addControllerAspect(ControllerAspect controllerAspect) {
+        injectIfStarted(controllerAspect);
         SlotComponentManager.getInstance().getControllerAspects(this.my_context).add(controllerAspect);
+        this.requestHandler.rebuildControllerAspects();
     }
 
     public void addMethodArgumentResolver(MethodArgumentResolver resolver) {
         SlotComponentManager.getInstance().getMethodArgumentResolverList(this.my_context).add(resolver);
+        this.requestHandler.rebuildBindingPlans();
     }
 
     public void setSlotHttpParsedRequestFactory(HttpParsedRequestFactory httpParsedRequestFactory) {
+        injectIfStarted(httpParsedRequestFactory);
         SlotComponentManager.getInstance().setHttpParsedRequestFactory(httpParsedRequestFactory);
     }
 
@@ -187,6 +191,19 @@ public class ControllerContextHandler extends ContextHandler {
     }
 
 
+    //启动之前添加的组件在启动时统一注入，启动之后添加的立即注入
+    private void injectIfStarted(Object component) {
+        if (!this.isStarted() || component == null) {
+            return;
+        }
+        try {
+            ServiceManager.getInstance().injectSingleton(component);
+        } catch (Exception e) {
+            throw new IllegalStateException("failed to inject " + component.getClass().getName(), e);
+        }
+    }
+
+
     /**
      * 报漏给外界，为了用户扩展需要，比如用户自己实现一个RPC框架
      *
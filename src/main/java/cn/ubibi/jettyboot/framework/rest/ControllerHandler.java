@@ -2,7 +2,6 @@ package cn.ubibi.jettyboot.framework.rest;
 
 
 import cn.ubibi.jettyboot.framework.commons.StringUtils;
-import cn.ubibi.jettyboot.framework.ioc.ServiceManager;
 import cn.ubibi.jettyboot.framework.rest.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,12 +23,15 @@ public class ControllerHandler {
     private String path;
     private String my_context;
 
+    private ControllerObjectFactory controllerObjectFactory;
+
     private List<ControllerMethodHandler> controllerMethodList;
 
 
     public ControllerHandler(String my_context, String path, Class<?> clazz) {
         this.my_context = my_context;
         this.restControllerClazz = clazz;
+        this.controllerObjectFactory = new ControllerObjectFactory(clazz);
         this.path = formatClassPath(path);
         this.controllerMethodList = buildMethodHandlerList();
     }
@@ -38,6 +40,7 @@ public class ControllerHandler {
     public ControllerHandler(String my_context, String path, Object restController) {
         this.my_context = my_context;
         this.restController = restController;
+        this.controllerObjectFactory = new ControllerObjectFactory(restController);
         this.path = formatClassPath(path);
         this.controllerMethodList = buildMethodHandlerList();
     }
@@ -111,10 +114,10 @@ public class ControllerHandler {
         List<ControllerMethodHandler> result = new ArrayList<>(1);
         if (request_method.startsWith("rpc_")) {
             String methodPath = method.getName();
-            result.add(new ControllerMethodHandler(context,clazz, methodPath, request_method, classPath, method));
+            result.add(new ControllerMethodHandler(this, context, clazz, methodPath, request_method, classPath, method));
         } else if (value != null) {
             for (String methodPath : value) {
-                result.add(new ControllerMethodHandler(context,clazz, methodPath, request_method, classPath, method));
+                result.add(new ControllerMethodHandler(this, context, clazz, methodPath, request_method, classPath, method));
             }
         }
         return result;
@@ -132,8 +135,7 @@ public class ControllerHandler {
 
             for (ControllerMethodHandler method : methods) {
                 if (method.isSupportRequest(request)) {
-                    Object controller = this.getControllerObject();
-                    method.doHandleRequest(controller, request, response);
+                    handle(method, request, response);
                     return true;
                 }
             }
@@ -144,6 +146,13 @@ public class ControllerHandler {
     }
 
 
+    //路由已经匹配好的情况
+    void handle(ControllerMethodHandler method, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        Object controller = this.getControllerObject();
+        method.doHandleRequest(controller, request, response);
+    }
+
+
     private String formatClassPath(String path) {
         if (StringUtils.isEmpty(path)) {
             return "/";
@@ -171,14 +180,13 @@ public class ControllerHandler {
      * @throws Exception
      */
     private Object getControllerObject() throws Exception {
-        Object controller = this.restController;
-        if (controller == null) {
-            controller = restControllerClazz.newInstance();
-        }
+        return controllerObjectFactory.getControllerObject();
+    }
+
 
-        //依赖注入
-        ServiceManager.getInstance().injectDependency(controller);
-        return controller;
+    //启动时调用，单例的Controller在这里注入依赖
+    void initControllerObject() throws Exception {
+        controllerObjectFactory.init();
     }
 
 
@@ -1,46 +1,109 @@
 package cn.ubibi.jettyboot.framework.rest;
 
 import cn.ubibi.jettyboot.framework.commons.*;
-import cn.ubibi.jettyboot.framework.ioc.ServiceManager;
+import cn.ubibi.jettyboot.framework.commons.cache.CacheAnnotationUtils;
+import cn.ubibi.jettyboot.framework.commons.cache.CacheMethod;
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvoker;
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvokers;
 import cn.ubibi.jettyboot.framework.rest.annotation.*;
+import cn.ubibi.jettyboot.framework.rest.bind.MethodBindingPlan;
 import cn.ubibi.jettyboot.framework.rest.ifs.*;
 import cn.ubibi.jettyboot.framework.rest.impl.*;
-import cn.ubibi.jettyboot.framework.rest.model.MethodArgument;
+import cn.ubibi.jettyboot.framework.rest.impl.base.TextRespRenderAdapter;
+import cn.ubibi.jettyboot.framework.rest.route.RouteTemplate;
 import cn.ubibi.jettyboot.framework.slot.SlotComponentManager;
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 
 import javax.servlet.AsyncContext;
-import javax.servlet.ServletRequest;
-import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.lang.reflect.Type;
-import java.nio.charset.Charset;
 import java.util.*;
 
 public class ControllerMethodHandler implements Comparable<ControllerMethodHandler> {
 
     private String targetPath;
+    private RouteTemplate routeTemplate;
     private String supportRequestMethod;
     private Method method;
 
     private String my_context;
     private Class<?> controllerClazz;
     private String controllerClazzSimpleName;
+    private ControllerHandler controllerHandler;
+    private volatile MethodBindingPlan bindingPlan;
+    private MethodInvoker methodInvoker;
 
+    private AsyncMergeMethod asyncMergeMethod;
+    private ConcurrencyLimiter asyncMergeLimiter;
 
-    ControllerMethodHandler(String my_context, Class<?> controllerClazz, String methodPath, String supportRequestMethod, String classPath, Method method) {
+    //@BatchMethod 时收集不同key的请求
+    private BatchMethod batchMethod;
+    private BatchCollector batchCollector;
+
+    //@CacheMethod(cacheResponse = true) 时缓存渲染后的响应
+    private CacheMethod responseCacheMethod;
+    private String responseCacheKeyPrefix;
+
+    //只包含作用于这个方法的Aspect
+    private volatile ControllerAspect[] controllerAspects;
+
+
+    ControllerMethodHandler(ControllerHandler controllerHandler, String my_context, Class<?> controllerClazz, String methodPath, String supportRequestMethod, String classPath, Method method) {
+        this.controllerHandler = controllerHandler;
         this.my_context = my_context;
         this.targetPath = pathJoin(classPath, methodPath);
+        this.routeTemplate = new RouteTemplate(this.targetPath);
         this.supportRequestMethod = supportRequestMethod;
         this.method = method;
         this.controllerClazz = controllerClazz;
         this.controllerClazzSimpleName = controllerClazz.getSimpleName();
+        this.methodInvoker = MethodInvokers.getMethodInvoker(method);
+        this.asyncMergeMethod = method.getDeclaredAnnotation(AsyncMergeMethod.class);
+        if (this.asyncMergeMethod != null && this.asyncMergeMethod.maxConcurrent() > 0) {
+            this.asyncMergeLimiter = new ConcurrencyLimiter(this.asyncMergeMethod.maxConcurrent());
+        }
+
+        this.batchMethod = method.getDeclaredAnnotation(BatchMethod.class);
+        if (this.batchMethod != null) {
+            if (this.asyncMergeMethod != null) {
+                throw new IllegalArgumentException("BatchMethod can not be used with AsyncMergeMethod : " + method);
+            }
+            if (this.batchMethod.paramKey() < 0 || this.batchMethod.paramKey() >= method.getParameterCount()) {
+                throw new IllegalArgumentException("BatchMethod paramKey out of range : " + method);
+            }
+            this.batchCollector = new BatchCollector(controllerClazz, this.batchMethod);
+        }
+
+        CacheMethod cacheMethod = method.getDeclaredAnnotation(CacheMethod.class);
+        if (cacheMethod != null && cacheMethod.cacheResponse() && this.asyncMergeMethod == null && this.batchCollector == null) {
+            this.responseCacheMethod = cacheMethod;
+            this.responseCacheKeyPrefix = ResponseCache.toCacheKeyPrefix(method, cacheMethod);
+        }
+        this.rebuildBindingPlan();
+        this.rebuildControllerAspects();
+    }
+
+
+    //MethodArgumentResolver变化时需要重新编译
+    void rebuildBindingPlan() {
+        List<MethodArgumentResolver> resolvers = SlotComponentManager.getInstance().getMethodArgumentResolverList(this.my_context);
+        this.bindingPlan = MethodBindingPlan.compile(method, supportRequestMethod, resolvers);
+    }
+
+
+    //ControllerAspect变化时需要重新生成
+    void rebuildControllerAspects() {
+        List<ControllerAspect> aspectList = SlotComponentManager.getInstance().getControllerAspects(this.my_context);
+        List<ControllerAspect> result = new ArrayList<>(aspectList.size());
+        for (ControllerAspect controllerAspect : aspectList) {
+            if (controllerAspect instanceof RouteControllerAspect) {
+                if (!((RouteControllerAspect) controllerAspect).isSupport(method, targetPath)) {
+                    continue;
+                }
+            }
+            result.add(controllerAspect);
+        }
+        this.controllerAspects = result.toArray(new ControllerAspect[result.size()]);
     }
 
 
@@ -70,6 +133,12 @@ public class ControllerMethodHandler implements Comparable<ControllerMethodHandl
         if (supportRequestMethod.equalsIgnoreCase(request.getMethod())) {
             String requestPathInfo = request.getPathInfo();
             HttpPathComparator httpPathComparator = SlotComponentManager.getInstance().getHttpPathComparator();
+
+            //默认的比较方式直接使用编译好的模板
+            if (httpPathComparator.getClass() == DefaultHttpPathComparator.class) {
+                return routeTemplate.isMatch(requestPathInfo);
+            }
+
             if (httpPathComparator.isMatch(targetPath, requestPathInfo)) {
                 return true;
             }
@@ -83,7 +152,7 @@ public class ControllerMethodHandler implements Comparable<ControllerMethodHandl
     //处理请求
     void doHandleRequest(Object controller, HttpServletRequest request, HttpServletResponse response) throws Exception {
 
-        List<ControllerAspect> methodWrappers = SlotComponentManager.getInstance().getControllerAspects(this.my_context);
+        ControllerAspect[] methodWrappers = this.controllerAspects;
 
         HttpParsedRequest httpParsedRequest;
         Object invokeResult = null;
@@ -92,31 +161,57 @@ public class ControllerMethodHandler implements Comparable<ControllerMethodHandl
             //解析HTTP请求
             httpParsedRequest = createHttpParsedRequest(controller, method, request, targetPath);
 
-            //Aspect前置
+            //Aspect前置，Aspect在启动时已经注入了依赖
             for (ControllerAspect controllerAspect : methodWrappers) {
-                ServiceManager.getInstance().injectDependency(controllerAspect);
                 controllerAspect.beforeInvoke(method, httpParsedRequest);
             }
 
+            //资源没有变化时不调用Controller
+            if (controller instanceof ControllerVersionProvider && isNotModified((ControllerVersionProvider) controller, httpParsedRequest, response)) {
+                return;
+            }
+
             //准备参数
-            Object[] paramsObjects = getMethodParamsObjects(method, httpParsedRequest, response);
+            Object[] paramsObjects = bindingPlan.bind(httpParsedRequest, response);
 
 
             //除AsyncMergeMethod注解以外的其他处理
-            InvokeResultCallable invokeResultCallable = new InvokeResultCallable(method, paramsObjects, controller);
+            InvokeResultCallable invokeResultCallable = new InvokeResultCallable(method, methodInvoker, paramsObjects, controller);
 
-            AsyncMergeMethod unionMethodCall = method.getDeclaredAnnotation(AsyncMergeMethod.class);
+            AsyncMergeMethod unionMethodCall = this.asyncMergeMethod;
             if (unionMethodCall != null) {
 
                 String taskKey = AsyncContextTaskManager.toTaskKey(method, unionMethodCall, paramsObjects);
 
+                //刚执行完的结果还在linger时间内，直接同步输出
+                MergeResultMemo.MemoEntry memoEntry = unionMethodCall.linger() > 0 ? MergeResultMemo.get(taskKey) : null;
+                if (memoEntry != null) {
+                    ResultRenderMisc.renderAndAfterInvoke(memoEntry.getInvokeResult(), method, httpParsedRequest, response, methodWrappers);
+                    return;
+                }
+
                 AsyncContext asyncContext = request.startAsync(httpParsedRequest, response);
                 asyncContext.setTimeout(unionMethodCall.timeout());
                 asyncContext.addListener(new AsyncContextListener());
 
-                AsyncResultCallback asyncResultCallback = new DefaultAsyncResultCallback(method,this.my_context);
-                AsyncContextTaskManager.addTask(taskKey, asyncResultCallback, asyncContext, invokeResultCallable);
+                AsyncResultCallback asyncResultCallback = new DefaultAsyncResultCallback(method, methodWrappers);
+                AsyncContextTaskManager.addTask(taskKey, asyncResultCallback, asyncContext, invokeResultCallable, asyncMergeLimiter, unionMethodCall.linger());
+
+                invokeResult = new VoidResult();
+            } else if (batchCollector != null) {
+
+                Object batchKey = paramsObjects[batchMethod.paramKey()];
+
+                AsyncContext asyncContext = request.startAsync(httpParsedRequest, response);
+                asyncContext.setTimeout(batchMethod.timeout());
+                asyncContext.addListener(new AsyncContextListener());
+
+                AsyncResultCallback asyncResultCallback = new DefaultAsyncResultCallback(method, methodWrappers);
+                batchCollector.add(controller, batchKey, asyncContext, asyncResultCallback);
 
+                invokeResult = new VoidResult();
+            } else if (responseCacheMethod != null && FrameworkConfig.getInstance().isCacheAnnotation()) {
+                doHandleWithResponseCache(controller, httpParsedRequest, response, paramsObjects, methodWrappers);
                 invokeResult = new VoidResult();
             } else {
                 invokeResult = invokeResultCallable.call();
@@ -131,230 +226,80 @@ public class ControllerMethodHandler implements Comparable<ControllerMethodHandl
         if (invokeResult instanceof VoidResult) {
             //do nothing
         } else {
-            ResultRenderMisc.renderAndAfterInvoke(invokeResult, method, httpParsedRequest, response, this.my_context);
+            ResultRenderMisc.renderAndAfterInvoke(invokeResult, method, httpParsedRequest, response, methodWrappers);
         }
     }
 
 
-    private HttpParsedRequest createHttpParsedRequest(Object controller, Method method, HttpServletRequest request, String targetPath) throws Exception {
-
-        HttpParsedRequestFactory httpParsedRequestFactory = SlotComponentManager.getInstance().getHttpParsedRequestFactory();
-
-        ServiceManager.getInstance().injectDependency(httpParsedRequestFactory);
-
-        return httpParsedRequestFactory.createHttpParsedRequest(controller, method, request, targetPath);
-    }
-
-
-    private Object[] getMethodParamsObjects(Method method, HttpParsedRequest httpParsedRequest, HttpServletResponse response) throws Exception {
-
-        boolean isRpcJSON = this.isRPC_JSON();
-        //如果是RPC的方式，默认只支持json的序列化协议
-        //如果用其他的序列化协议，可以实现MethodArgumentResolver
-        String request_method = this.supportRequestMethod;
-
-        JSONArray rpcArgJSONArray = null;
-        if (isRpcJSON) {
-            Charset requestBodyCharset = FrameworkConfig.getInstance().getRequestBodyCharset();
-            String jsonString = httpParsedRequest.getRequestBodyAsString(requestBodyCharset);
-            if (!StringUtils.isEmpty(jsonString)) {
-                rpcArgJSONArray = JSON.parseArray(jsonString);
-            }
+    //命中时直接输出缓存的内容，不执行afterInvoke和afterRender
+    private boolean isNotModified(ControllerVersionProvider versionProvider, HttpParsedRequest httpParsedRequest, HttpServletResponse response) throws Exception {
+        if (!ETagUtils.isConditionalMethod(httpParsedRequest)) {
+            return false;
         }
 
-
-        int paramsCount = method.getParameterCount();
-        Type[] paramsTypes = method.getGenericParameterTypes();
-        Annotation[][] paramAnnotations = method.getParameterAnnotations();
-
-
-        if (paramsCount == 0) {
-            return new Object[]{};
+        String version = versionProvider.getResourceVersion(method, httpParsedRequest);
+        if (version == null) {
+            return false;
         }
 
-
-        List<Object> objects = new ArrayList<>();
-
-        for (int argIndex = 0; argIndex < paramsCount; argIndex++) {
-
-            Type type = paramsTypes[argIndex];
-            Annotation[] annotations = paramAnnotations[argIndex];
-
-            MethodArgument methodArgument = new MethodArgument(method, type, annotations, argIndex, rpcArgJSONArray,request_method);
-
-            Object object = null;
-
-            MethodArgumentResolver methodArgumentResolver = findMethodArgumentResolver(methodArgument);
-            if (methodArgumentResolver != null) {
-                object = methodArgumentResolver.resolveArgument(methodArgument, httpParsedRequest);
-            } else {
-                object = getMethodParamObjectByAnnotation(methodArgument, httpParsedRequest, response);
-            }
-
-            //使用RPC的参数来补充
-            if (object == null && isRpcJSON) {
-                object = getRpcMethodParamJSONObject(methodArgument, rpcArgJSONArray, argIndex);
-            }
-
-
-            objects.add(object);
+        String etag = ETagUtils.toVersionETag(version);
+        if (ETagUtils.isNotModified(httpParsedRequest, etag)) {
+            ResponseUtils.sendNotModified(httpParsedRequest, response, etag);
+            return true;
         }
 
-
-        return objects.toArray();
+        //Render看到已经有ETag，就不再根据内容计算
+        response.setHeader("ETag", etag);
+        return false;
     }
 
 
-    private Object getRpcMethodParamJSONObject(MethodArgument methodArgument, JSONArray requestBodyArray, int index) throws Exception {
+    //命中时不执行afterInvoke和afterRender，未命中时记录方法和afterInvoke设置的状态和头信息，命中时一起输出
+    private void doHandleWithResponseCache(Object controller, HttpParsedRequest httpParsedRequest, HttpServletResponse response, Object[] paramsObjects, ControllerAspect[] methodWrappers) throws Exception {
 
-        if (requestBodyArray == null) {
-            return null;
+        String cacheKey = CacheAnnotationUtils.toCacheKey(responseCacheKeyPrefix, responseCacheMethod.paramKey(), paramsObjects);
+        ResponseBytesRender cachedRender = ResponseCache.get(cacheKey);
+        if (cachedRender != null) {
+            cachedRender.doRender(httpParsedRequest, response);
+            return;
         }
 
+        Map<String, List<String>> headersBefore = ResponseCache.getHeaders(response);
 
-        Object obj;
-
-        if (index >= requestBodyArray.size()) {
-            obj = null;
-        } else {
-            //索引没有超出
-            obj = requestBodyArray.get(index);
-        }
-
-        return CastJsonTypeUtils.jsonObjectToJavaObject(obj, methodArgument.getType());
-    }
-
-
-    private MethodArgumentResolver findMethodArgumentResolver(MethodArgument methodArgument) throws Exception {
-
-        List<MethodArgumentResolver> methodArgumentResolvers = SlotComponentManager.getInstance().getMethodArgumentResolverList(this.my_context);
-
-        for (MethodArgumentResolver resolver : methodArgumentResolvers) {
-            if (resolver.isSupport(methodArgument)) {
-                return resolver;
-            }
+        //不经过InvokeResultCallable，结果不需要再放入@CacheMethod的对象缓存
+        Object invokeResult = methodInvoker.invoke(controller, paramsObjects);
+        if (invokeResult instanceof VoidResult) {
+            return;
         }
-        return null;
-    }
-
-
-    /**
-     * 获取某个方法参数的默认实现
-     *
-     * @param methodArgument    类型
-     * @param httpParsedRequest 请求参数
-     * @param response          响应
-     * @return
-     * @throws IOException
-     */
-    private Object getMethodParamObjectByAnnotation(MethodArgument methodArgument, HttpParsedRequest httpParsedRequest, HttpServletResponse response) throws Exception {
-
-
-        Type type = methodArgument.getType();
-        Class typeClazz = (Class) methodArgument.getRawType();
-        Type[] actualTypeArguments = methodArgument.getActualTypeArguments();
 
-        Annotation[] annotations = methodArgument.getAnnotations();
-
-        Annotation annotation = null;
-        if (annotations != null && annotations.length > 0) {
-            annotation = annotations[0];
+        for (ControllerAspect methodWrapper : methodWrappers) {
+            methodWrapper.afterInvoke(method, httpParsedRequest, invokeResult, response);
         }
 
-
-        Object object = null;
-
-        //1.通过注解注入
-        if (annotation != null) {
-
-            Class<? extends Annotation> annotationType = annotation.annotationType();
-            if (annotationType == RequestParam.class) {
-
-                RequestParam requestParam = (RequestParam) annotation;
-                String paramName = requestParam.value();
-                String defaultValue = requestParam.defaultValue();
-
-                List<String> values = httpParsedRequest.getParameterValuesAsList(paramName);
-
-                if (typeClazz.isArray()) {
-                    Class elementType = typeClazz.getComponentType();
-                    object = CastBasicTypeUtils.toBasicTypeArrayOf(values, elementType);
-                } else if (Collection.class.isAssignableFrom(typeClazz)) {
-
-                    Class elementType = null;
-                    if (!CollectionUtils.isEmpty(actualTypeArguments)) {
-                        elementType = (Class) actualTypeArguments[0];
-                    }
-
-                    if (Set.class.equals(typeClazz)) {
-                        typeClazz = HashSet.class;
-                    } else if (Collection.class.equals(typeClazz) || List.class.equals(typeClazz)) {
-                        typeClazz = ArrayList.class;
-                    }
-
-                    object = CastBasicTypeUtils.toBasicTypeCollectionOf(values, typeClazz, elementType);
-
-                } else {
-
-                    String value = httpParsedRequest.getParameter(paramName);
-                    if (value == null && !StringUtils.isEmpty(defaultValue)) {
-                        value = defaultValue;
-                    }
-
-                    if (value == null && CastBasicTypeUtils.isBasicType(typeClazz)) {
-                        object = CastBasicTypeUtils.toBasicTypeOf(0, typeClazz);
-                    } else {
-                        object = CastBasicTypeUtils.toBasicTypeOf(value, typeClazz);
-                    }
-                }
-
-            } else if (annotationType == RequestParams.class) {
-
-                object = httpParsedRequest.getParameterValuesAsObject(typeClazz);
-
-            } else if (annotationType == RequestBody.class) {
-
-                Charset charset = FrameworkConfig.getInstance().getRequestBodyCharset();
-                String jsonString = httpParsedRequest.getRequestBodyAsString(charset);
-                JSONObject jsonObject = JSON.parseObject(jsonString);
-                object = CastJsonTypeUtils.jsonObjectToJavaObject(jsonObject, type);
-
-            } else if (annotationType == PathVariable.class) {
-
-                PathVariable requestPath = (PathVariable) annotation;
-                String sw = httpParsedRequest.getPathVariable(requestPath.value());
-                object = CastBasicTypeUtils.toBasicTypeOf(sw, typeClazz);
-
-            } else if (annotationType == AspectVariable.class) {
-
-                AspectVariable aspectVariable = (AspectVariable) annotation;
-                String aspectVariableName = aspectVariable.value();
-                if (!aspectVariableName.isEmpty()) {
-                    object = httpParsedRequest.getAspectVariable(aspectVariableName);
-                } else {
-                    object = httpParsedRequest.getAspectVariable(typeClazz);
-                }
-
+        //只有文本类的结果可以缓存，设置了Set-Cookie等针对某个用户的头信息时不缓存
+        ResponseRender render = ResultRenderMisc.toResponseRender(invokeResult);
+        if (render instanceof TextRespRenderAdapter) {
+            Map<String, List<String>> changedHeaders = ResponseCache.getChangedHeaders(headersBefore, response);
+            if (ResponseCache.isCacheable(changedHeaders)) {
+                ResponseBytesRender bytesRender = ResponseBytesRender.of((TextRespRenderAdapter) render, response.getStatus(), changedHeaders);
+                ResponseCache.put(cacheKey, bytesRender, responseCacheMethod.activeTime());
+                render = bytesRender;
             }
         }
+        render.doRender(httpParsedRequest, response);
 
+        for (ControllerAspect methodWrapper : methodWrappers) {
+            methodWrapper.afterRender(method, httpParsedRequest, invokeResult, response);
+        }
+    }
 
-        //2.通过类型注入
-        if (object == null) {
 
-            if (RequestParser.class.isAssignableFrom(typeClazz)) {
-                RequestParser m = (RequestParser) typeClazz.newInstance();
-                m.doParse(httpParsedRequest);
-                object = m;
+    private HttpParsedRequest createHttpParsedRequest(Object controller, Method method, HttpServletRequest request, String targetPath) throws Exception {
 
-            } else if (ServletRequest.class.isAssignableFrom(typeClazz)) {
-                object = httpParsedRequest;
-            } else if (typeClazz.equals(ServletResponse.class) || typeClazz.equals(HttpServletResponse.class)) {
-                object = response;
-            }
-        }
+        //HttpParsedRequestFactory在启动时已经注入了依赖
+        HttpParsedRequestFactory httpParsedRequestFactory = SlotComponentManager.getInstance().getHttpParsedRequestFactory();
 
-        return object;
+        return httpParsedRequestFactory.createHttpParsedRequest(controller, method, request, targetPath);
     }
 
 
@@ -389,6 +334,10 @@ public class ControllerMethodHandler implements Comparable<ControllerMethodHandl
         return targetPath;
     }
 
+    public RouteTemplate getRouteTemplate() {
+        return routeTemplate;
+    }
+
     public String getSupportRequestMethod() {
         return supportRequestMethod;
     }
@@ -396,4 +345,8 @@ public class ControllerMethodHandler implements Comparable<ControllerMethodHandl
     public Method getMethod() {
         return method;
     }
+
+    ControllerHandler getControllerHandler() {
+        return controllerHandler;
+    }
 }
@@ -0,0 +1,74 @@
+package cn.ubibi.jettyboot.framework.rest;
+
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvokers;
+import cn.ubibi.jettyboot.framework.commons.invoke.ObjectCreator;
+import cn.ubibi.jettyboot.framework.ioc.InjectionPlan;
+import cn.ubibi.jettyboot.framework.ioc.ServiceManager;
+
+
+/**
+ * 管理Controller对象的生命周期
+ * 1. 单例的Controller只在启动时注入一次依赖，启动后addService时由ServiceManager重新注入
+ * 2. 非单例的Controller每次请求用生成的构造器创建，按预先编译好的注入计划注入依赖
+ * <p>
+ * 非单例的Controller通常带有请求内的状态，所以不做对象池复用。
+ */
+class ControllerObjectFactory {
+
+    private final Object singletonController;
+    private final Class<?> controllerClazz;
+
+    private volatile boolean isInitialized = false;
+
+    private ObjectCreator objectCreator;
+    private InjectionPlan injectionPlan;
+
+
+    ControllerObjectFactory(Object singletonController) {
+        this.singletonController = singletonController;
+        this.controllerClazz = singletonController.getClass();
+    }
+
+
+    ControllerObjectFactory(Class<?> controllerClazz) {
+        this.singletonController = null;
+        this.controllerClazz = controllerClazz;
+    }
+
+
+    /**
+     * 启动时调用，失败了会在第一次请求时再试一次
+     */
+    synchronized void init() throws Exception {
+        if (isInitialized) {
+            return;
+        }
+
+        if (singletonController != null) {
+            ServiceManager.getInstance().injectSingleton(singletonController);
+        } else {
+            if (this.injectionPlan == null) {
+                this.injectionPlan = ServiceManager.getInstance().getInjectionPlan(controllerClazz);
+            }
+            if (this.objectCreator == null) {
+                this.objectCreator = MethodInvokers.createObjectCreator(controllerClazz);
+            }
+        }
+
+        isInitialized = true;
+    }
+
+
+    Object getControllerObject() throws Exception {
+        if (!isInitialized) {
+            init();
+        }
+
+        Object controller = this.singletonController;
+        if (controller == null) {
+            controller = objectCreator.newInstance();
+            injectionPlan.inject(controller);
+        }
+        return controller;
+    }
+}
@@ -2,8 +2,11 @@ package cn.ubibi.jettyboot.framework.rest;
 
 
 import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
+import cn.ubibi.jettyboot.framework.commons.VirtualThreads;
+import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.HandlerCollection;
 import org.eclipse.jetty.server.session.SessionHandler;
@@ -40,14 +43,26 @@ public class JettyBootServer extends Server {
 
     private SessionHandler controllerSessionHandler = null;
 
+    //构造函数中创建的Connector，只有它使用FrameworkConfig.keepAliveIdleTimeout
+    private ServerConnector defaultConnector = null;
+
 
     public JettyBootServer(int port) {
-        super(port);
+        super(createThreadPool());
+        ServerConnector connector = new ServerConnector(this);
+        connector.setPort(port);
+        setConnectors(new Connector[]{connector});
+        this.defaultConnector = connector;
         this.init();
     }
 
     public JettyBootServer(InetSocketAddress addr) {
-        super(addr);
+        super(createThreadPool());
+        ServerConnector connector = new ServerConnector(this);
+        connector.setHost(addr.getHostString());
+        connector.setPort(addr.getPort());
+        setConnectors(new Connector[]{connector});
+        this.defaultConnector = connector;
         this.init();
     }
 
@@ -57,6 +72,20 @@ public class JettyBootServer extends Server {
     }
 
 
+    //返回null时使用Jetty默认的QueuedThreadPool
+    private static ThreadPool createThreadPool() {
+        FrameworkConfig frameworkConfig = FrameworkConfig.getInstance();
+        if (!frameworkConfig.isServerVirtualThreads()) {
+            return null;
+        }
+        if (!VirtualThreads.isSupported()) {
+            LOGGER.info("VirtualThread not support , using QueuedThreadPool");
+            return null;
+        }
+        return new VirtualQueuedThreadPool(frameworkConfig.getServerVirtualMaxThreads());
+    }
+
+
     private void init() {
         SessionHandler sessionHandler = new SessionHandler();
         sessionHandler.setMaxInactiveInterval(30 * 60); //30 分钟
@@ -95,6 +124,19 @@ public class JettyBootServer extends Server {
 
 
 
+    @Override
+    protected void doStart() throws Exception {
+
+        //长连接的空闲超时，用户自己添加的Connector保持自己的设置
+        long idleTimeout = FrameworkConfig.getInstance().getKeepAliveIdleTimeout();
+        if (idleTimeout > 0 && defaultConnector != null) {
+            defaultConnector.setIdleTimeout(idleTimeout);
+        }
+
+        super.doStart();
+    }
+
+
     public void startAndJoin() throws Exception {
         this.setHandler(handlerCollection);
         this.start();
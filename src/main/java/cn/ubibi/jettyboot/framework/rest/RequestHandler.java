@@ -1,8 +1,16 @@
 package cn.ubibi.jettyboot.framework.rest;
 
+import cn.ubibi.jettyboot.framework.commons.ResponseUtils;
 import cn.ubibi.jettyboot.framework.ioc.ServiceManager;
+import cn.ubibi.jettyboot.framework.rest.ifs.ControllerAspect;
 import cn.ubibi.jettyboot.framework.rest.ifs.ControllerExceptionHandler;
+import cn.ubibi.jettyboot.framework.rest.ifs.HttpPathComparator;
+import cn.ubibi.jettyboot.framework.rest.impl.DefaultHttpPathComparator;
+import cn.ubibi.jettyboot.framework.rest.impl.RequestBodyReader;
 import cn.ubibi.jettyboot.framework.rest.impl.TextRender;
+import cn.ubibi.jettyboot.framework.rest.route.RouteMatch;
+import cn.ubibi.jettyboot.framework.rest.route.RouteTable;
+import cn.ubibi.jettyboot.framework.slot.SlotComponentManager;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.slf4j.Logger;
@@ -21,13 +29,54 @@ public class RequestHandler extends AbstractHandler {
 
     private final List<ControllerHandler> controllerHandlers = new ArrayList<>();
     private final List<ControllerExceptionHandler> exceptionHandlers = new ArrayList<>();
+    private final RouteTable routeTable = new RouteTable();
     private final String my_context;
     public RequestHandler(String my_context) {
         this.my_context = my_context;
     }
 
     public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        try {
+            handleRequest(baseRequest, request, response);
+        } finally {
+            //请求内容使用的缓冲区在请求结束后归还
+            RequestBodyReader.releaseOnComplete(request);
+        }
+    }
+
+
+    private void handleRequest(Request baseRequest, HttpServletRequest request, HttpServletResponse response) {
+
+        //用户自定义了HttpPathComparator，只能逐个比较
+        HttpPathComparator httpPathComparator = SlotComponentManager.getInstance().getHttpPathComparator();
+        if (httpPathComparator.getClass() != DefaultHttpPathComparator.class) {
+            handleByComparator(baseRequest, request, response);
+            return;
+        }
+
+
+        RouteMatch routeMatch = routeTable.match(request.getMethod(), request.getPathInfo());
+        if (routeMatch == null) {
+            return;
+        }
+
+        request.setAttribute(RouteMatch.REQUEST_ATTRIBUTE, routeMatch);
+
+        ControllerMethodHandler methodHandler = routeMatch.getMethodHandler();
+        try {
+            methodHandler.getControllerHandler().handle(methodHandler, request, response);
+        } catch (Exception e) {
+            try {
+                handleException2(e, request, response);
+            } catch (Exception e1) {
+                LOGGER.error("", e1);
+            }
+        }
+        baseRequest.setHandled(true);
+    }
+
 
+    private void handleByComparator(Request baseRequest, HttpServletRequest request, HttpServletResponse response) {
 
         // check rest controller handler
         for (ControllerHandler restHandler : controllerHandlers) {
@@ -47,7 +96,6 @@ public class RequestHandler extends AbstractHandler {
             }
         }
 
-
     }
 
     private void handleException2(Exception e, HttpServletRequest request, HttpServletResponse response) throws Exception {
@@ -64,6 +112,7 @@ public class RequestHandler extends AbstractHandler {
             } else {
                 String nextLine = "    \n   ";
                 String exMsg = e.toString() + nextLine + e.getMessage() + nextLine + e.getCause();
+                ResponseUtils.setConnectionClose(response);
                 new TextRender(exMsg).doRender(request, response);
             }
         }
@@ -92,7 +141,7 @@ public class RequestHandler extends AbstractHandler {
         }
         LOGGER.info("addController " + path + "  :  " + clazz.getName());
         String context = this.my_context;
-        controllerHandlers.add(new ControllerHandler(context,path, clazz));
+        addControllerHandler(new ControllerHandler(context, path, clazz));
     }
 
     public void addController(String path, Object restController) throws Exception {
@@ -101,7 +150,15 @@ public class RequestHandler extends AbstractHandler {
         }
         LOGGER.info("addController " + path + "  :  " + restController.getClass().getName());
         String context = this.my_context;
-        controllerHandlers.add(new ControllerHandler(context,path, restController));
+        addControllerHandler(new ControllerHandler(context, path, restController));
+    }
+
+
+    private void addControllerHandler(ControllerHandler controllerHandler) {
+        controllerHandlers.add(controllerHandler);
+        for (ControllerMethodHandler methodHandler : controllerHandler.getControllerMethodList()) {
+            routeTable.addRoute(methodHandler);
+        }
     }
 
 
@@ -114,6 +171,46 @@ public class RequestHandler extends AbstractHandler {
     }
 
 
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        //Aspect和HttpParsedRequestFactory只在启动时注入一次，启动后addService时由ServiceManager重新注入
+        SlotComponentManager slotComponentManager = SlotComponentManager.getInstance();
+        for (ControllerAspect controllerAspect : slotComponentManager.getControllerAspects(my_context)) {
+            ServiceManager.getInstance().injectSingleton(controllerAspect);
+        }
+        ServiceManager.getInstance().injectSingleton(slotComponentManager.getHttpParsedRequestFactory());
+
+        //单例的Controller在启动时注入依赖，失败了在请求时会再试
+        for (ControllerHandler controllerHandler : controllerHandlers) {
+            try {
+                controllerHandler.initControllerObject();
+            } catch (Exception e) {
+                LOGGER.error("initControllerObject failed : " + controllerHandler.getControllerClass().getName(), e);
+            }
+        }
+    }
+
+
+    void rebuildControllerAspects() {
+        for (ControllerHandler controllerHandler : controllerHandlers) {
+            for (ControllerMethodHandler methodHandler : controllerHandler.getControllerMethodList()) {
+                methodHandler.rebuildControllerAspects();
+            }
+        }
+    }
+
+
+    void rebuildBindingPlans() {
+        for (ControllerHandler controllerHandler : controllerHandlers) {
+            for (ControllerMethodHandler methodHandler : controllerHandler.getControllerMethodList()) {
+                methodHandler.rebuildBindingPlan();
+            }
+        }
+    }
+
+
     public List<ControllerMethodHandler> getControllerMethodHandlers() {
         List<ControllerMethodHandler> result = new ArrayList<>();
 
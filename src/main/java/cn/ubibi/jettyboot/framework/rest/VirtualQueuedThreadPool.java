@@ -0,0 +1,29 @@
+package cn.ubibi.jettyboot.framework.rest;
+
+import cn.ubibi.jettyboot.framework.commons.VirtualThreads;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+
+/**
+ * Jetty的线程池，工作线程使用虚拟线程(JDK21+)，阻塞的Controller不会占用平台线程。
+ * 不支持虚拟线程时与QueuedThreadPool相同。
+ */
+public class VirtualQueuedThreadPool extends QueuedThreadPool {
+
+    public VirtualQueuedThreadPool(int maxThreads) {
+        super(maxThreads);
+        //虚拟线程只能是daemon
+        setDaemon(true);
+        setName("jetty-boot-vt");
+    }
+
+
+    @Override
+    protected Thread newThread(Runnable runnable) {
+        Thread thread = VirtualThreads.newThread(runnable);
+        if (thread == null) {
+            return super.newThread(runnable);
+        }
+        return thread;
+    }
+}
@@ -16,4 +16,6 @@ import java.lang.annotation.Target;
 public @interface AsyncMergeMethod {
     int[] paramKey() default {};
     long timeout() default 30000; // 30s ,asyncContext.setTimeout
+    int maxConcurrent() default 0; // 同时执行的不同key的任务数上限，超过时按FrameworkConfig.taskRejectPolicy处理，0表示不限制
+    long linger() default 0; // 执行完后结果保留的毫秒数，期间相同key的请求直接使用这个结果，0表示不保留
 }
\ No newline at end of file
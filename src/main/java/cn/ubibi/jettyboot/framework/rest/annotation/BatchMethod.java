@@ -0,0 +1,25 @@
+package cn.ubibi.jettyboot.framework.rest.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * 把一段时间内不同key的请求合并为一次批量调用，例如把多个findById合并为一次findByIdList。
+ * 被注解的方法只用来定义路由和参数，批量的请求不会调用它，而是调用同一个Controller中名为value的方法:
+ * <pre>
+ * Map&lt;K, V&gt; bulk(List&lt;K&gt; keys)
+ * </pre>
+ * 每个请求得到Map中自己key对应的值，没有时为null。不能与AsyncMergeMethod同时使用，否则启动时报错。
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BatchMethod {
+    String value(); // 批量方法的名字
+    int paramKey() default 0; // 作为key的参数下标
+    long window() default 5; // 收集请求的毫秒数，从批次中第一个请求开始计算
+    int maxBatchSize() default 100; // 不同key的个数达到这个值时立即执行
+    long timeout() default 30000; // 30s ,asyncContext.setTimeout
+}
@@ -0,0 +1,16 @@
+package cn.ubibi.jettyboot.framework.rest.bind;
+
+import cn.ubibi.jettyboot.framework.rest.ifs.HttpParsedRequest;
+import com.alibaba.fastjson.JSONArray;
+
+import javax.servlet.http.HttpServletResponse;
+
+
+/**
+ * 方法某一个参数的绑定方式，在注册Controller时就已经确定
+ */
+public interface ArgumentBinder {
+
+    Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) throws Exception;
+
+}
@@ -0,0 +1,422 @@
+package cn.ubibi.jettyboot.framework.rest.bind;
+
+import cn.ubibi.jettyboot.framework.commons.CastBasicTypeUtils;
+import cn.ubibi.jettyboot.framework.commons.CastJsonTypeUtils;
+import cn.ubibi.jettyboot.framework.commons.CollectionUtils;
+import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
+import cn.ubibi.jettyboot.framework.commons.StringUtils;
+import cn.ubibi.jettyboot.framework.commons.ifs.ValueConverter;
+import cn.ubibi.jettyboot.framework.rest.annotation.*;
+import cn.ubibi.jettyboot.framework.rest.ifs.HttpParsedRequest;
+import cn.ubibi.jettyboot.framework.rest.ifs.MethodArgumentResolver;
+import cn.ubibi.jettyboot.framework.rest.ifs.RequestParser;
+import cn.ubibi.jettyboot.framework.rest.model.MethodArgument;
+import com.alibaba.fastjson.JSONArray;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.*;
+
+
+/**
+ * 各种参数的绑定方式
+ */
+public class ArgumentBinders {
+
+
+    /**
+     * 根据参数的注解和类型，选择参数的绑定方式
+     *
+     * @param methodArgument 参数描述，不含请求相关的内容
+     * @param resolvers      用户自定义的参数解析器
+     * @param isRpcJSON      是否是RPC的方式
+     * @return 绑定方式
+     */
+    public static ArgumentBinder toArgumentBinder(MethodArgument methodArgument, List<MethodArgumentResolver> resolvers, boolean isRpcJSON) {
+
+        ArgumentBinder binder = null;
+
+        MethodArgumentResolver resolver = findMethodArgumentResolver(methodArgument, resolvers);
+        if (resolver != null) {
+            binder = new ResolverBinder(resolver, methodArgument);
+        } else {
+            ArgumentBinder annotationBinder = toAnnotationBinder(methodArgument);
+            ArgumentBinder typeBinder = toTypeBinder(methodArgument);
+            if (annotationBinder != null && typeBinder != null) {
+                binder = new FirstNotNullBinder(annotationBinder, typeBinder);
+            } else if (annotationBinder != null) {
+                binder = annotationBinder;
+            } else {
+                binder = typeBinder;
+            }
+        }
+
+
+        //使用RPC的参数来补充
+        if (isRpcJSON) {
+            binder = new RpcJSONBinder(binder, methodArgument.getArgIndex(), methodArgument.getType());
+        }
+
+        if (binder == null) {
+            binder = new NullBinder();
+        }
+
+        return binder;
+    }
+
+
+    private static MethodArgumentResolver findMethodArgumentResolver(MethodArgument methodArgument, List<MethodArgumentResolver> resolvers) {
+        for (MethodArgumentResolver resolver : resolvers) {
+            if (resolver.isSupport(methodArgument)) {
+                return resolver;
+            }
+        }
+        return null;
+    }
+
+
+    //1.通过注解注入
+    private static ArgumentBinder toAnnotationBinder(MethodArgument methodArgument) {
+
+        Annotation[] annotations = methodArgument.getAnnotations();
+        if (annotations == null || annotations.length == 0) {
+            return null;
+        }
+
+        Annotation annotation = annotations[0];
+        Class typeClazz = (Class) methodArgument.getRawType();
+        Class<? extends Annotation> annotationType = annotation.annotationType();
+
+        if (annotationType == RequestParam.class) {
+            return toRequestParamBinder((RequestParam) annotation, methodArgument, typeClazz);
+        } else if (annotationType == RequestParams.class) {
+            return new RequestParamsBinder(typeClazz);
+        } else if (annotationType == RequestBody.class) {
+            return new RequestBodyBinder(methodArgument.getType(), typeClazz);
+        } else if (annotationType == PathVariable.class) {
+            return new PathVariableBinder(((PathVariable) annotation).value(), typeClazz);
+        } else if (annotationType == AspectVariable.class) {
+            return new AspectVariableBinder(((AspectVariable) annotation).value(), typeClazz);
+        }
+
+        return null;
+    }
+
+
+    private static ArgumentBinder toRequestParamBinder(RequestParam requestParam, MethodArgument methodArgument, Class typeClazz) {
+
+        String paramName = requestParam.value();
+
+        if (typeClazz.isArray()) {
+            return new RequestParamArrayBinder(paramName, typeClazz.getComponentType());
+        }
+
+        if (Collection.class.isAssignableFrom(typeClazz)) {
+
+            Class elementType = null;
+            Type[] actualTypeArguments = methodArgument.getActualTypeArguments();
+            if (!CollectionUtils.isEmpty(actualTypeArguments) && actualTypeArguments[0] instanceof Class) {
+                elementType = (Class) actualTypeArguments[0];
+            }
+
+            if (Set.class.equals(typeClazz)) {
+                typeClazz = HashSet.class;
+            } else if (Collection.class.equals(typeClazz) || List.class.equals(typeClazz)) {
+                typeClazz = ArrayList.class;
+            }
+
+            return new RequestParamCollectionBinder(paramName, typeClazz, elementType);
+        }
+
+        return new RequestParamBinder(paramName, requestParam.defaultValue(), typeClazz);
+    }
+
+
+    //2.通过类型注入
+    private static ArgumentBinder toTypeBinder(MethodArgument methodArgument) {
+
+        Class typeClazz = (Class) methodArgument.getRawType();
+
+        if (RequestParser.class.isAssignableFrom(typeClazz)) {
+            return new RequestParserBinder(typeClazz);
+        } else if (ServletRequest.class.isAssignableFrom(typeClazz)) {
+            return new ServletRequestBinder();
+        } else if (typeClazz.equals(ServletResponse.class) || typeClazz.equals(HttpServletResponse.class)) {
+            return new ServletResponseBinder();
+        }
+
+        return null;
+    }
+
+
+    private static class FirstNotNullBinder implements ArgumentBinder {
+
+        private final ArgumentBinder binder1;
+        private final ArgumentBinder binder2;
+
+        FirstNotNullBinder(ArgumentBinder binder1, ArgumentBinder binder2) {
+            this.binder1 = binder1;
+            this.binder2 = binder2;
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) throws Exception {
+            Object object = binder1.bind(request, response, rpcJSONArray);
+            if (object == null) {
+                object = binder2.bind(request, response, rpcJSONArray);
+            }
+            return object;
+        }
+    }
+
+
+    private static class NullBinder implements ArgumentBinder {
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) {
+            return null;
+        }
+    }
+
+
+    private static class ResolverBinder implements ArgumentBinder {
+
+        private final MethodArgumentResolver resolver;
+        private final MethodArgument methodArgument;
+
+        ResolverBinder(MethodArgumentResolver resolver, MethodArgument methodArgument) {
+            this.resolver = resolver;
+            this.methodArgument = methodArgument;
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) {
+            MethodArgument m = this.methodArgument;
+            MethodArgument methodArgument = new MethodArgument(m.getMethod(), m.getType(), m.getAnnotations(), m.getArgIndex(), rpcJSONArray, m.getRequestMethod());
+            return resolver.resolveArgument(methodArgument, request);
+        }
+    }
+
+
+    private static class RpcJSONBinder implements ArgumentBinder {
+
+        private final ArgumentBinder binder;
+        private final int argIndex;
+        private final Type type;
+
+        RpcJSONBinder(ArgumentBinder binder, int argIndex, Type type) {
+            this.binder = binder;
+            this.argIndex = argIndex;
+            this.type = type;
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) throws Exception {
+            Object object = null;
+            if (binder != null) {
+                object = binder.bind(request, response, rpcJSONArray);
+            }
+
+            if (object == null && rpcJSONArray != null) {
+                Object obj = null;
+                if (argIndex < rpcJSONArray.size()) {
+                    obj = rpcJSONArray.get(argIndex);
+                }
+                object = CastJsonTypeUtils.jsonObjectToJavaObject(obj, type);
+            }
+            return object;
+        }
+    }
+
+
+    private static class RequestParamArrayBinder implements ArgumentBinder {
+
+        private final String paramName;
+        private final Class elementType;
+
+        RequestParamArrayBinder(String paramName, Class elementType) {
+            this.paramName = paramName;
+            this.elementType = elementType;
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) throws Exception {
+            List<String> values = request.getParameterValuesAsList(paramName);
+            return CastBasicTypeUtils.toBasicTypeArrayOf(values, elementType);
+        }
+    }
+
+
+    private static class RequestParamCollectionBinder implements ArgumentBinder {
+
+        private final String paramName;
+        private final Class collectionClazz;
+        private final Class elementType;
+
+        RequestParamCollectionBinder(String paramName, Class collectionClazz, Class elementType) {
+            this.paramName = paramName;
+            this.collectionClazz = collectionClazz;
+            this.elementType = elementType;
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) throws Exception {
+            List<String> values = request.getParameterValuesAsList(paramName);
+            return CastBasicTypeUtils.toBasicTypeCollectionOf(values, collectionClazz, elementType);
+        }
+    }
+
+
+    private static class RequestParamBinder implements ArgumentBinder {
+
+        private final String paramName;
+        private final String defaultValue;
+        private final ValueConverter converter;
+        private final Object zeroValue;
+
+        RequestParamBinder(String paramName, String defaultValue, Class typeClazz) {
+            this.paramName = paramName;
+            this.defaultValue = StringUtils.isEmpty(defaultValue) ? null : defaultValue;
+            this.converter = CastBasicTypeUtils.getBasicTypeConverter(typeClazz);
+
+            //基本数据类型不能为null
+            Object zeroValue = null;
+            if (CastBasicTypeUtils.isBasicType(typeClazz)) {
+                try {
+                    zeroValue = converter.convert(0);
+                } catch (Exception e) {
+                    zeroValue = null;
+                }
+            }
+            this.zeroValue = zeroValue;
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) throws Exception {
+            String value = request.getParameter(paramName);
+            if (value == null) {
+                value = defaultValue;
+            }
+
+            if (value == null) {
+                return zeroValue;
+            }
+            return converter.convert(value);
+        }
+    }
+
+
+    private static class RequestParamsBinder implements ArgumentBinder {
+
+        private final Class typeClazz;
+
+        RequestParamsBinder(Class typeClazz) {
+            this.typeClazz = typeClazz;
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) {
+            return request.getParameterValuesAsObject(typeClazz);
+        }
+    }
+
+
+    private static class RequestBodyBinder implements ArgumentBinder {
+
+        private final Type type;
+        private final boolean isDirectParse;
+
+        RequestBodyBinder(Type type, Class typeClazz) {
+            this.type = type;
+
+            //这几种类型由CastJsonTypeUtils做特殊的转换，仍然先解析成JSON树
+            this.isDirectParse = !(typeClazz.equals(Object.class) || typeClazz.equals(String.class)
+                    || CastBasicTypeUtils.isBasicType(typeClazz) || Map.class.isAssignableFrom(typeClazz));
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) throws Exception {
+            if (isDirectParse) {
+                Charset charset = FrameworkConfig.getInstance().getRequestBodyCharset();
+                return request.getRequestBodyAsObject(type, charset);
+            }
+
+            //与RPC参数、Aspect共用同一次解析的结果
+            return CastJsonTypeUtils.jsonObjectToJavaObject(request.getRequestBodyAsJSON(), type);
+        }
+    }
+
+
+    private static class PathVariableBinder implements ArgumentBinder {
+
+        private final String name;
+        private final ValueConverter converter;
+
+        PathVariableBinder(String name, Class typeClazz) {
+            this.name = name;
+            this.converter = CastBasicTypeUtils.getBasicTypeConverter(typeClazz);
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) throws Exception {
+            String sw = request.getPathVariable(name);
+            return converter.convert(sw);
+        }
+    }
+
+
+    private static class AspectVariableBinder implements ArgumentBinder {
+
+        private final String name;
+        private final Class typeClazz;
+
+        AspectVariableBinder(String name, Class typeClazz) {
+            this.name = name;
+            this.typeClazz = typeClazz;
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) {
+            if (!name.isEmpty()) {
+                return request.getAspectVariable(name);
+            }
+            return request.getAspectVariable(typeClazz);
+        }
+    }
+
+
+    private static class RequestParserBinder implements ArgumentBinder {
+
+        private final Class typeClazz;
+
+        RequestParserBinder(Class typeClazz) {
+            this.typeClazz = typeClazz;
+        }
+
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) throws Exception {
+            RequestParser m = (RequestParser) typeClazz.newInstance();
+            m.doParse(request);
+            return m;
+        }
+    }
+
+
+    private static class ServletRequestBinder implements ArgumentBinder {
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) {
+            return request;
+        }
+    }
+
+
+    private static class ServletResponseBinder implements ArgumentBinder {
+        @Override
+        public Object bind(HttpParsedRequest request, HttpServletResponse response, JSONArray rpcJSONArray) {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package cn.ubibi.jettyboot.framework.rest.bind;
+
+import cn.ubibi.jettyboot.framework.rest.ifs.HttpParsedRequest;
+import cn.ubibi.jettyboot.framework.rest.ifs.MethodArgumentResolver;
+import cn.ubibi.jettyboot.framework.rest.model.MethodArgument;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.List;
+
+
+/**
+ * 一个Controller方法的参数绑定计划，注册时编译好，之后不再变化。
+ * 每次请求只需要依次执行每个参数的ArgumentBinder。
+ * <p>
+ * MethodArgumentResolver列表变化时需要重新编译。
+ */
+public class MethodBindingPlan {
+
+    private static final Object[] EMPTY_PARAMS = new Object[0];
+
+    private final ArgumentBinder[] binders;
+    private final boolean isRpcJSON;
+
+
+    private MethodBindingPlan(ArgumentBinder[] binders, boolean isRpcJSON) {
+        this.binders = binders;
+        this.isRpcJSON = isRpcJSON;
+    }
+
+
+    public static MethodBindingPlan compile(Method method, String requestMethod, List<MethodArgumentResolver> resolvers) {
+
+        boolean isRpcJSON = "rpc_json".equals(requestMethod);
+
+        int paramsCount = method.getParameterCount();
+        Type[] paramsTypes = method.getGenericParameterTypes();
+        Annotation[][] paramAnnotations = method.getParameterAnnotations();
+
+        ArgumentBinder[] binders = new ArgumentBinder[paramsCount];
+        for (int argIndex = 0; argIndex < paramsCount; argIndex++) {
+            MethodArgument methodArgument = new MethodArgument(method, paramsTypes[argIndex], paramAnnotations[argIndex], argIndex, null, requestMethod);
+            binders[argIndex] = ArgumentBinders.toArgumentBinder(methodArgument, resolvers, isRpcJSON);
+        }
+
+        return new MethodBindingPlan(binders, isRpcJSON);
+    }
+
+
+    public Object[] bind(HttpParsedRequest httpParsedRequest, HttpServletResponse response) throws Exception {
+
+        //如果是RPC的方式，默认只支持json的序列化协议
+        //如果用其他的序列化协议，可以实现MethodArgumentResolver
+        JSONArray rpcArgJSONArray = null;
+        if (isRpcJSON) {
+            Object json = httpParsedRequest.getRequestBodyAsJSON();
+            if (json instanceof JSONArray) {
+                rpcArgJSONArray = (JSONArray) json;
+            } else if (json != null) {
+                throw new JSONException("rpc_json request body must be a json array");
+            }
+        }
+
+        ArgumentBinder[] binders = this.binders;
+        if (binders.length == 0) {
+            return EMPTY_PARAMS;
+        }
+
+        Object[] objects = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            objects[i] = binders[i].bind(httpParsedRequest, response, rpcArgJSONArray);
+        }
+        return objects;
+    }
+}
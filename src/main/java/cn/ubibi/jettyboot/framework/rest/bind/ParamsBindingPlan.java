@@ -0,0 +1,237 @@
+package cn.ubibi.jettyboot.framework.rest.bind;
+
+import cn.ubibi.jettyboot.framework.commons.BeanField;
+import cn.ubibi.jettyboot.framework.commons.BeanFieldUtils;
+import cn.ubibi.jettyboot.framework.commons.CastBasicTypeUtils;
+import cn.ubibi.jettyboot.framework.commons.CollectionUtils;
+import cn.ubibi.jettyboot.framework.commons.ifs.ValueConverter;
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvokers;
+import cn.ubibi.jettyboot.framework.commons.invoke.ObjectCreator;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.util.TypeUtils;
+
+import javax.servlet.ServletRequest;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * 把请求参数绑定到一个对象上(@RequestParams)，每个类只编译一次。
+ * 每个字段记录好参数名、转换方式和setter，绑定时直接把参数字符串转换后写入字段，不经过JSON。
+ * <p>
+ * 包含父类的字段，有public的setter时使用setter，否则直接写字段。没有传的参数保持对象的默认值。
+ * 非字符串类型的空参数(如 ?pageSize= )当作没有传，数组和集合中的空元素为null(基本类型为0)。
+ */
+public class ParamsBindingPlan {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final Map<Class, ParamsBindingPlan> planCache = new ConcurrentHashMap<>();
+
+    private final ObjectCreator objectCreator;
+    private final FieldBinder[] fieldBinders;
+
+
+    private ParamsBindingPlan(Class<?> clazz) throws Exception {
+        this.objectCreator = MethodInvokers.createObjectCreator(clazz);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<BeanField> beanFields = BeanFieldUtils.getBeanFields(clazz);
+        List<FieldBinder> fieldBinders = new ArrayList<>(beanFields.size());
+        for (BeanField beanField : beanFields) {
+            Field field = beanField.getField();
+            fieldBinders.add(new FieldBinder(field, toSetter(lookup, clazz, field)));
+        }
+        this.fieldBinders = fieldBinders.toArray(new FieldBinder[fieldBinders.size()]);
+    }
+
+
+    public static ParamsBindingPlan getInstance(Class<?> clazz) throws Exception {
+        ParamsBindingPlan plan = planCache.get(clazz);
+        if (plan == null) {
+            plan = new ParamsBindingPlan(clazz);
+            planCache.put(clazz, plan);
+        }
+        return plan;
+    }
+
+
+    public Object bind(ServletRequest request) throws Exception {
+        Object bean = objectCreator.newInstance();
+        for (FieldBinder fieldBinder : fieldBinders) {
+            fieldBinder.bind(request, bean);
+        }
+        return bean;
+    }
+
+
+    private static MethodHandle toSetter(MethodHandles.Lookup lookup, Class<?> clazz, Field field) throws IllegalAccessException {
+        String fieldName = field.getName();
+        String setterName = "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        try {
+            Method setter = clazz.getMethod(setterName, field.getType());
+            if (!Modifier.isStatic(setter.getModifiers()) && Modifier.isPublic(setter.getDeclaringClass().getModifiers())) {
+                return lookup.unreflect(setter).asType(SETTER_TYPE);
+            }
+        } catch (NoSuchMethodException e) {
+            //没有setter，直接写字段
+        }
+
+        if (!field.isAccessible()) {
+            field.setAccessible(true);
+        }
+        return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+    }
+
+
+    //基本类型使用CastBasicTypeUtils，日期和其他类型(枚举等)使用fastjson的转换，与原来经过JSON时一致
+    private static ValueConverter toValueConverter(final Class<?> clazz, final Type type) {
+        if (CastBasicTypeUtils.isSupportConvert(clazz) && !Date.class.isAssignableFrom(clazz)) {
+            return CastBasicTypeUtils.getBasicTypeConverter(clazz);
+        }
+
+        return new ValueConverter() {
+            @Override
+            public Object convert(Object value) {
+                return TypeUtils.cast(value, type, ParserConfig.getGlobalInstance());
+            }
+        };
+    }
+
+
+    private static class FieldBinder {
+
+        private static final int TYPE_VALUE = 0;
+        private static final int TYPE_ARRAY = 1;
+        private static final int TYPE_COLLECTION = 2;
+
+        private final String paramName;
+        private final MethodHandle setter;
+        private final int bindType;
+        private final boolean isPrimitive;
+        private final boolean isEmptyAsNull;
+        private final Class<?> elementClazz;
+        private final Class<?> collectionClazz;
+        private final ValueConverter converter;
+
+
+        FieldBinder(Field field, MethodHandle setter) {
+            this.paramName = field.getName();
+            this.setter = setter;
+
+            Class<?> fieldClazz = field.getType();
+            this.isPrimitive = fieldClazz.isPrimitive();
+
+            if (fieldClazz.isArray()) {
+                this.bindType = TYPE_ARRAY;
+                this.elementClazz = fieldClazz.getComponentType();
+                this.collectionClazz = null;
+                this.converter = toValueConverter(elementClazz, elementClazz);
+            } else if (Collection.class.isAssignableFrom(fieldClazz)) {
+                Type elementType = String.class;
+                Type genericType = field.getGenericType();
+                if (genericType instanceof ParameterizedType) {
+                    Type[] actualTypeArguments = ((ParameterizedType) genericType).getActualTypeArguments();
+                    if (!CollectionUtils.isEmpty(actualTypeArguments)) {
+                        elementType = actualTypeArguments[0];
+                    }
+                }
+                this.bindType = TYPE_COLLECTION;
+                this.elementClazz = elementType instanceof Class ? (Class<?>) elementType : Object.class;
+                this.collectionClazz = toCollectionClazz(fieldClazz);
+                this.converter = elementType instanceof Class ? toValueConverter(elementClazz, elementType) : null;
+            } else {
+                this.bindType = TYPE_VALUE;
+                this.elementClazz = fieldClazz;
+                this.collectionClazz = null;
+                this.converter = toValueConverter(fieldClazz, field.getGenericType());
+            }
+
+            //空字符串只对字符串类型有意义
+            this.isEmptyAsNull = !elementClazz.isAssignableFrom(String.class);
+        }
+
+
+        private static Class<?> toCollectionClazz(Class<?> fieldClazz) {
+            if (!fieldClazz.isInterface() && !Modifier.isAbstract(fieldClazz.getModifiers())) {
+                return fieldClazz;
+            }
+            if (SortedSet.class.isAssignableFrom(fieldClazz)) {
+                return TreeSet.class;
+            }
+            if (Set.class.isAssignableFrom(fieldClazz)) {
+                return HashSet.class;
+            }
+            if (fieldClazz.isAssignableFrom(ArrayList.class)) {
+                return ArrayList.class;
+            }
+            return LinkedList.class;
+        }
+
+
+        void bind(ServletRequest request, Object bean) throws Exception {
+            Object value;
+            if (bindType == TYPE_VALUE) {
+                String stringValue = request.getParameter(paramName);
+                if (stringValue == null || (isEmptyAsNull && stringValue.isEmpty())) {
+                    return;
+                }
+                value = converter.convert(stringValue);
+                if (value == null && isPrimitive) {
+                    return;
+                }
+            } else {
+                String[] stringValues = request.getParameterValues(paramName);
+                if (stringValues == null) {
+                    return;
+                }
+                value = bindType == TYPE_ARRAY ? toArray(stringValues) : toCollection(stringValues);
+            }
+
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+
+        private Object toArray(String[] stringValues) throws Exception {
+            Object array = Array.newInstance(elementClazz, stringValues.length);
+            for (int i = 0; i < stringValues.length; i++) {
+                Object element = convertElement(stringValues[i]);
+                if (element != null || !elementClazz.isPrimitive()) {
+                    Array.set(array, i, element);
+                }
+            }
+            return array;
+        }
+
+
+        private Collection toCollection(String[] stringValues) throws Exception {
+            Collection collection = (Collection) collectionClazz.newInstance();
+            for (String stringValue : stringValues) {
+                collection.add(converter == null ? stringValue : convertElement(stringValue));
+            }
+            return collection;
+        }
+
+
+        private Object convertElement(String stringValue) throws Exception {
+            if (isEmptyAsNull && stringValue.isEmpty()) {
+                return null;
+            }
+            return converter.convert(stringValue);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package cn.ubibi.jettyboot.framework.rest.handlers;
 
+import cn.ubibi.jettyboot.framework.commons.ResponseHeaders;
 import cn.ubibi.jettyboot.framework.rest.ifs.ResourceHandlerFilter;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.handler.ContextHandler;
@@ -98,7 +99,7 @@ public class ResourceHandlers {
                 return;
             }
 
-            response.setHeader("Server", ("boot-" + System.currentTimeMillis()));
+            ResponseHeaders.setHeader(response, ResponseHeaders.getServerField());
 
             if (resourceHandlerFilter != null) {
                 if (resourceHandlerFilter.isOK(target, baseRequest, request, response)) {
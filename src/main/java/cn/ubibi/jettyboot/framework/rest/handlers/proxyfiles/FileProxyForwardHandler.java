@@ -70,7 +70,7 @@ public class FileProxyForwardHandler extends AbstractHandler {
             if (invokeResult instanceof String) {
                 String disk_path = (String) invokeResult;
                 File disk_file = new File(disk_path);
-                sendFile((HttpServletResponse) servletResponse, disk_file);
+                sendFile(servletRequest, (HttpServletResponse) servletResponse, disk_file);
             } else if (invokeResult instanceof Integer) {
                 Integer statusCode = (Integer) invokeResult;
                 sendErrorResponse(statusCode, (HttpServletResponse) servletResponse);
@@ -147,6 +147,7 @@ public class FileProxyForwardHandler extends AbstractHandler {
 
 
     private static void sendErrorResponse(int statusCode, HttpServletResponse response) throws IOException {
+        ResponseUtils.setConnectionClose(response);
         response.setStatus(statusCode);
         response.getWriter().write("Error Occur");
         response.getWriter().flush();
@@ -155,21 +156,28 @@ public class FileProxyForwardHandler extends AbstractHandler {
     }
 
 
-    private static void sendFile(HttpServletResponse response, File disk_file) throws IOException {
+    private static void sendFile(ServletRequest request, HttpServletResponse response, File disk_file) throws IOException {
 
         long file_size = disk_file.length();
 
         response.setContentType(getContentType(disk_file));
         response.setHeader("Content-Length", "" + file_size);
-        response.setHeader("Server", FrameworkConfig.getInstance().getResponseServerName());
+        ResponseHeaders.setHeader(response, ResponseHeaders.getServerField());
         response.setHeader("cache-control", "public,max-age=25920000");
-        response.setHeader("connection","close");
+        ResponseUtils.setConnectionHeader(request, response);
 
         response.setStatus(HttpServletResponse.SC_OK);
 
-        ServletOutputStream outputStream = response.getOutputStream();
         FileInputStream inputStream = new FileInputStream(disk_file);
 
+        //大文件异步写出，慢的客户端不占用线程
+        if (AsyncResponseWriter.isAsyncWritable(request, file_size)) {
+            AsyncResponseWriter.write(request, response, inputStream);
+            return;
+        }
+
+        ServletOutputStream outputStream = response.getOutputStream();
+
         FileUtils.inputStream2OutputStream(inputStream, outputStream);
 
         inputStream.close();
@@ -0,0 +1,13 @@
+package cn.ubibi.jettyboot.framework.rest.ifs;
+
+import java.lang.reflect.Method;
+
+/**
+ * Controller实现此接口后，GET/HEAD请求会先获取资源版本作为ETag，
+ * 与If-None-Match相同时直接返回304，不再绑定参数和调用Controller方法。
+ */
+public interface ControllerVersionProvider {
+
+    //返回null表示不支持，继续正常处理请求
+    String getResourceVersion(Method method, HttpParsedRequest request) throws Exception;
+}
@@ -2,6 +2,8 @@ package cn.ubibi.jettyboot.framework.rest.ifs;
 
 
 import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
@@ -20,8 +22,17 @@ public interface HttpParsedRequest extends HttpServletRequest {
 
     byte[] getRequestBody() throws Exception;
 
+    //请求内容的只读视图，请求结束后缓冲区会被复用，不能再访问
+    ByteBuffer getRequestBodyBuffer() throws Exception;
+
     String getRequestBodyAsString(Charset charset) throws Exception;
 
+    //把JSON格式的请求内容直接反序列化成指定类型，内容为空时返回null
+    Object getRequestBodyAsObject(Type type, Charset charset) throws Exception;
+
+    //解析成JSONObject或JSONArray，同一个请求只解析一次，内容为空时返回null
+    Object getRequestBodyAsJSON() throws Exception;
+
     List<String> getParameterValuesAsList(String name);
 
     <T> T getParameterValuesAsObject(Class<? extends T> clazz);
@@ -0,0 +1,14 @@
+package cn.ubibi.jettyboot.framework.rest.ifs;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * 只作用于部分路由的Aspect，启动时对每个Controller方法判断一次，
+ * 不支持的方法在请求时不会调用这个Aspect
+ */
+public interface RouteControllerAspect extends ControllerAspect {
+
+    boolean isSupport(Method method, String targetPath);
+
+}
@@ -1,37 +1,104 @@
 package cn.ubibi.jettyboot.framework.rest.impl;
 
-import cn.ubibi.jettyboot.framework.rest.ifs.HttpParsedRequest;
+import cn.ubibi.jettyboot.framework.commons.AsyncResponseWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
-import javax.servlet.http.HttpServletResponse;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * 一次合并执行的任务，等待结果的请求保存在一个无锁的链表中。
+ * 任务执行完后把链表原子地替换为CLOSED，之后不能再加入，取出的请求都会收到结果。
+ */
 public class AsyncContextTask implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AsyncContextTask.class);
 
-    private List<AsyncContext> callbackAsyncContext = new ArrayList<>();
-    private String taskKey;
-    private AsyncResultCallback asyncResultCallback;  //just for renderAndAfterInvoke
-    private Callable callable;
+    private static final Waiter CLOSED = new Waiter(null, null);
+
+    private final AtomicReference<Waiter> waiters = new AtomicReference<>();
+    private final String taskKey;
+    private final AsyncResultCallback asyncResultCallback;  //just for renderAndAfterInvoke
+    private final Callable callable;
+
+    //并发控制，由AsyncContextTaskManager获取和释放
+    private final ConcurrencyLimiter methodLimiter;
+    private volatile boolean isAdmitted = false;
+
+    //执行成功后结果在MergeResultMemo中保留的毫秒数
+    private final long lingerMs;
 
     public AsyncContextTask(String taskKey, AsyncResultCallback asyncResultCallback, Callable callable) {
+        this(taskKey, asyncResultCallback, callable, null, 0);
+    }
+
+    public AsyncContextTask(String taskKey, AsyncResultCallback asyncResultCallback, Callable callable, ConcurrencyLimiter methodLimiter, long lingerMs) {
         this.taskKey = taskKey;
         this.asyncResultCallback = asyncResultCallback;
         this.callable = callable;
+        this.methodLimiter = methodLimiter;
+        this.lingerMs = lingerMs;
+    }
+
+
+    /**
+     * @return 任务已经执行完，不能再加入时返回false
+     */
+    public boolean addCallbackAsyncContext(AsyncContext asyncContext) {
+        while (true) {
+            Waiter head = waiters.get();
+            if (head == CLOSED) {
+                return false;
+            }
+            if (waiters.compareAndSet(head, new Waiter(asyncContext, head))) {
+                return true;
+            }
+        }
+    }
+
+
+    //关闭后返回所有等待的请求，按加入的顺序
+    List<AsyncContext> close() {
+        Waiter head = waiters.getAndSet(CLOSED);
+
+        List<AsyncContext> asyncContexts = new ArrayList<>();
+        for (Waiter waiter = head; waiter != null && waiter != CLOSED; waiter = waiter.next) {
+            asyncContexts.add(waiter.asyncContext);
+        }
+
+        //链表是后加入的在前
+        Collections.reverse(asyncContexts);
+        return asyncContexts;
+    }
+
+
+    String getTaskKey() {
+        return taskKey;
+    }
+
+
+    ConcurrencyLimiter getMethodLimiter() {
+        return methodLimiter;
+    }
+
+
+    boolean isAdmitted() {
+        return isAdmitted;
     }
 
-    public void addCallbackAsyncContext(AsyncContext deferredResult) {
-        callbackAsyncContext.add(deferredResult);
+
+    void setAdmitted(boolean admitted) {
+        this.isAdmitted = admitted;
     }
 
+
     @Override
     public void run() {
 
@@ -39,41 +106,80 @@ public class AsyncContextTask implements Runnable {
         Object invokeResult = null;
         try {
             invokeResult = callable.call();
-            AsyncContextTaskManager.removeTask(taskKey);
         } catch (Exception e) {
             isCallException = true;
             LOGGER.error("", e);
         }
 
+        //在关闭之前放入，关闭之后来的请求能直接拿到结果
+        if (!isCallException && lingerMs > 0) {
+            MergeResultMemo.put(taskKey, invokeResult, lingerMs);
+        }
+
+        //先关闭再移除，关闭之后来的请求会开始新的任务
+        List<AsyncContext> asyncContexts = close();
+        AsyncContextTaskManager.removeTask(this);
 
         //调用出现异常
         if (isCallException) {
-            completeAsyncContext();
+            completeAsyncContext(asyncContexts);
             return;
         }
 
 
-        for (AsyncContext asyncContext : callbackAsyncContext) {
+        //每个请求单独处理，某个请求已经超时不影响其他请求拿到结果
+        for (AsyncContext asyncContext : asyncContexts) {
+
+            ServletRequest request;
+            try {
+                request = asyncContext.getRequest();
+            } catch (IllegalStateException e) {
+                //已经超时
+                continue;
+            }
 
             try {
 
-                ServletRequest request = asyncContext.getRequest();
                 ServletResponse response = asyncContext.getResponse();
-                asyncResultCallback.callback(invokeResult,request,response);
+                asyncResultCallback.callback(invokeResult, request, response);
 
             } catch (Exception e) {
                 LOGGER.error("", e);
             } finally {
-                asyncContext.complete();
+                //异步写出的响应写完后再complete
+                if (!AsyncResponseWriter.isAsyncWriting(request)) {
+                    completeAsyncContext(asyncContext);
+                }
             }
 
         }
 
     }
 
-    private void completeAsyncContext() {
-        for (AsyncContext asyncContext : callbackAsyncContext) {
+
+    static void completeAsyncContext(List<AsyncContext> asyncContexts) {
+        for (AsyncContext asyncContext : asyncContexts) {
+            completeAsyncContext(asyncContext);
+        }
+    }
+
+
+    private static void completeAsyncContext(AsyncContext asyncContext) {
+        try {
             asyncContext.complete();
+        } catch (IllegalStateException e) {
+            //已经超时
+        }
+    }
+
+
+    private static class Waiter {
+        private final AsyncContext asyncContext;
+        private final Waiter next;
+
+        Waiter(AsyncContext asyncContext, Waiter next) {
+            this.asyncContext = asyncContext;
+            this.next = next;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,44 +1,164 @@
 package cn.ubibi.jettyboot.framework.rest.impl;
 
 
+import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
+import cn.ubibi.jettyboot.framework.commons.ResponseUtils;
+import cn.ubibi.jettyboot.framework.commons.TaskExecutors;
+import cn.ubibi.jettyboot.framework.commons.TaskRejectPolicyEnum;
 import cn.ubibi.jettyboot.framework.rest.annotation.AsyncMergeMethod;
 
 import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class AsyncContextTaskManager {
 
 
-    //线程池
-    private static Executor execPools = null;
+    //线程池，默认按FrameworkConfig.taskExecutorType创建
+    private static volatile Executor execPools = null;
 
-    //正在执行的任务
-    private static final Map<String, AsyncContextTask> runningTaskMap = new HashMap<>();
+    //正在执行的任务，同一个key同时只有一个任务接受新的请求
+    private static final ConcurrentHashMap<String, AsyncContextTask> runningTaskMap = new ConcurrentHashMap<>();
 
-    public static synchronized void addTask(String taskKey, AsyncResultCallback asyncResultCallback, AsyncContext asyncContext, Callable callable) {
 
-        AsyncContextTask asyncRequestTask = runningTaskMap.get(taskKey);
+    //所有正在执行(含排队)的任务数，上限是FrameworkConfig.taskMaxInFlight
+    private static final ConcurrencyLimiter inFlightLimiter = new ConcurrencyLimiter(0);
 
-        if (asyncRequestTask == null) {
+    private static final AtomicLong rejectedCount = new AtomicLong();
 
-            asyncRequestTask = new AsyncContextTask(taskKey, asyncResultCallback, callable);
 
-            asyncRequestTask.addCallbackAsyncContext(asyncContext);
+    public static void addTask(String taskKey, AsyncResultCallback asyncResultCallback, AsyncContext asyncContext, Callable callable) {
+        addTask(taskKey, asyncResultCallback, asyncContext, callable, null, 0);
+    }
+
+
+    /**
+     * @param methodLimiter 方法级别的并发上限(AsyncMergeMethod.maxConcurrent)，可以为null。
+     *                      只有新建任务时才需要获取，加入已有的任务不受限制。
+     * @param lingerMs      执行成功后结果在MergeResultMemo中保留的毫秒数(AsyncMergeMethod.linger)
+     */
+    public static void addTask(String taskKey, AsyncResultCallback asyncResultCallback, AsyncContext asyncContext, Callable callable, ConcurrencyLimiter methodLimiter, long lingerMs) {
+
+        while (true) {
+
+            AsyncContextTask asyncRequestTask = runningTaskMap.get(taskKey);
+
+            if (asyncRequestTask == null) {
+
+                AsyncContextTask newTask = new AsyncContextTask(taskKey, asyncResultCallback, callable, methodLimiter, lingerMs);
+                newTask.addCallbackAsyncContext(asyncContext);
+
+                asyncRequestTask = runningTaskMap.putIfAbsent(taskKey, newTask);
+                if (asyncRequestTask == null) {
+                    execute(newTask);
+                    return;
+                }
+            }
+
+            if (asyncRequestTask.addCallbackAsyncContext(asyncContext)) {
+                return;
+            }
+
+            //任务已经执行完但还没有移除，帮它移除后重试
+            runningTaskMap.remove(taskKey, asyncRequestTask);
+        }
+    }
+
+
+    static void execute(AsyncContextTask task) {
+        execute(task, true);
+    }
+
+
+    /**
+     * 也用于BatchCollector提交的批次，这些任务不放入runningTaskMap
+     *
+     * @param isCallerRunsAllowed 为false时即使拒绝策略是CALLER_RUNS也返回503，用于不能阻塞的调度线程
+     */
+    static void execute(AsyncContextTask task, boolean isCallerRunsAllowed) {
+
+        if (tryAdmit(task)) {
+            try {
+                getExecutor().execute(task);
+                return;
+            } catch (RejectedExecutionException e) {
+                releaseAdmission(task);
+            }
+        }
+
+        rejectedCount.incrementAndGet();
+
+        if (isCallerRunsAllowed && FrameworkConfig.getInstance().getTaskRejectPolicy() == TaskRejectPolicyEnum.CALLER_RUNS) {
+            task.run();
+            return;
+        }
+
+        //已经加入的请求都直接返回503
+        List<AsyncContext> asyncContexts = task.close();
+        removeTask(task);
+        for (AsyncContext asyncContext : asyncContexts) {
+            ResponseUtils.sendServiceUnavailable((HttpServletResponse) asyncContext.getResponse(), FrameworkConfig.getInstance().getTaskRejectRetryAfter());
+        }
+        AsyncContextTask.completeAsyncContext(asyncContexts);
+    }
+
+
+    private static boolean tryAdmit(AsyncContextTask task) {
+        ConcurrencyLimiter methodLimiter = task.getMethodLimiter();
+        if (methodLimiter != null && !methodLimiter.tryAcquire()) {
+            return false;
+        }
+        if (!inFlightLimiter.tryAcquire(FrameworkConfig.getInstance().getTaskMaxInFlight())) {
+            if (methodLimiter != null) {
+                methodLimiter.release();
+            }
+            return false;
+        }
+        task.setAdmitted(true);
+        return true;
+    }
+
+
+    private static void releaseAdmission(AsyncContextTask task) {
+        if (!task.isAdmitted()) {
+            return;
+        }
+        task.setAdmitted(false);
+        inFlightLimiter.release();
+        if (task.getMethodLimiter() != null) {
+            task.getMethodLimiter().release();
+        }
+    }
+
+
+    //只移除这个任务，不影响同一个key之后的新任务
+    static void removeTask(AsyncContextTask task) {
+        runningTaskMap.remove(task.getTaskKey(), task);
+        releaseAdmission(task);
+    }
+
+
+    //正在执行和排队的任务数
+    public static int getInFlightCount() {
+        return inFlightLimiter.getCurrent();
+    }
 
-            getExecutor().execute(asyncRequestTask);
 
-            runningTaskMap.put(taskKey, asyncRequestTask);
-        } else {
-            asyncRequestTask.addCallbackAsyncContext(asyncContext);
+    //线程池队列中等待的任务数，不是ThreadPoolExecutor时返回0
+    public static int getQueueDepth() {
+        Executor executor = AsyncContextTaskManager.execPools;
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
         }
+        return 0;
     }
 
 
-    public static synchronized void removeTask(String taskKey) {
-        runningTaskMap.remove(taskKey);
+    public static long getRejectedCount() {
+        return rejectedCount.get();
     }
 
 
@@ -48,10 +168,17 @@ public class AsyncContextTaskManager {
 
 
     private static Executor getExecutor() {
-        if (AsyncContextTaskManager.execPools == null) {
-            AsyncContextTaskManager.execPools = new ThreadPoolExecutor(10, 100,  5L, TimeUnit.MINUTES, new LinkedBlockingQueue<Runnable>(10000));
+        Executor executor = AsyncContextTaskManager.execPools;
+        if (executor == null) {
+            synchronized (AsyncContextTaskManager.class) {
+                executor = AsyncContextTaskManager.execPools;
+                if (executor == null) {
+                    executor = TaskExecutors.createExecutor();
+                    AsyncContextTaskManager.execPools = executor;
+                }
+            }
         }
-        return AsyncContextTaskManager.execPools;
+        return executor;
     }
 
     public static String toTaskKey(Method method, AsyncMergeMethod unionMethodCall, Object[] params) {
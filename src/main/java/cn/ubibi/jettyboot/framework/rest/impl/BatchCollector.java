@@ -0,0 +1,152 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvoker;
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvokers;
+import cn.ubibi.jettyboot.framework.rest.annotation.BatchMethod;
+
+import javax.servlet.AsyncContext;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * 收集@BatchMethod的请求，窗口时间到了或者key的个数达到maxBatchSize时，
+ * 作为一个AsyncContextTask交给AsyncContextTaskManager执行，线程池、并发上限和拒绝策略与AsyncMergeMethod相同。
+ */
+public class BatchCollector {
+
+    //只负责到时间后提交批次，不执行批量方法，线程池拒绝时直接返回503
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "jetty-boot-batch-scheduler");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private static final AtomicLong batchSeq = new AtomicLong();
+
+    private final String bulkMethodName;
+    private final MethodInvoker bulkMethodInvoker;
+    private final long windowMs;
+    private final int maxBatchSize;
+
+    //正在收集的批次，加锁访问
+    private Batch currentBatch;
+
+
+    public BatchCollector(Class<?> controllerClazz, BatchMethod batchMethod) {
+        Method bulkMethod = findBulkMethod(controllerClazz, batchMethod.value());
+        if (bulkMethod == null) {
+            throw new IllegalArgumentException("BatchMethod not found : " + controllerClazz.getName() + "." + batchMethod.value() + "(List)");
+        }
+        this.bulkMethodName = controllerClazz.getName() + "." + bulkMethod.getName();
+        this.bulkMethodInvoker = MethodInvokers.getMethodInvoker(bulkMethod);
+        this.windowMs = Math.max(0, batchMethod.window());
+        this.maxBatchSize = Math.max(1, batchMethod.maxBatchSize());
+    }
+
+
+    //只有一个参数，可以传入List，返回Map
+    private static Method findBulkMethod(Class<?> controllerClazz, String methodName) {
+        for (Method method : controllerClazz.getMethods()) {
+            if (!method.getName().equals(methodName)) {
+                continue;
+            }
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (parameterTypes.length == 1 && parameterTypes[0].isAssignableFrom(ArrayList.class) && Map.class.isAssignableFrom(method.getReturnType())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * @param controller          第一个请求的controller用来执行这个批次
+     * @param asyncResultCallback 第一个请求的callback用来输出这个批次的所有结果
+     */
+    public void add(Object controller, Object key, AsyncContext asyncContext, AsyncResultCallback asyncResultCallback) {
+
+        asyncContext.getRequest().setAttribute(BatchResultCallback.BATCH_KEY_ATTRIBUTE, key);
+
+        Batch fullBatch = null;
+        synchronized (this) {
+            Batch batch = this.currentBatch;
+            if (batch == null) {
+                batch = new Batch(controller, asyncResultCallback);
+                this.currentBatch = batch;
+                scheduleFlush(batch);
+            }
+
+            batch.keys.add(key);
+            batch.asyncContexts.add(asyncContext);
+
+            if (batch.keys.size() >= maxBatchSize) {
+                this.currentBatch = null;
+                fullBatch = batch;
+            }
+        }
+
+        //在锁外面提交，拒绝策略为CALLER_RUNS时会在当前请求线程执行
+        if (fullBatch != null) {
+            submit(fullBatch, true);
+        }
+    }
+
+
+    private void scheduleFlush(final Batch batch) {
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush(batch);
+            }
+        }, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+
+    private void flush(Batch batch) {
+        synchronized (this) {
+            //已经因为达到maxBatchSize提交过了
+            if (this.currentBatch != batch) {
+                return;
+            }
+            this.currentBatch = null;
+        }
+
+        //在调度线程中执行会阻塞其他批次的提交
+        submit(batch, false);
+    }
+
+
+    private void submit(Batch batch, boolean isCallerRunsAllowed) {
+        String taskKey = "batch:" + bulkMethodName + "#" + batchSeq.incrementAndGet();
+        AsyncContextTask task = new AsyncContextTask(taskKey, new BatchResultCallback(batch.asyncResultCallback), batch);
+        for (AsyncContext asyncContext : batch.asyncContexts) {
+            task.addCallbackAsyncContext(asyncContext);
+        }
+        AsyncContextTaskManager.execute(task, isCallerRunsAllowed);
+    }
+
+
+    private class Batch implements Callable {
+
+        private final Object controller;
+        private final AsyncResultCallback asyncResultCallback;
+        private final Set<Object> keys = new LinkedHashSet<>();
+        private final List<AsyncContext> asyncContexts = new ArrayList<>();
+
+        Batch(Object controller, AsyncResultCallback asyncResultCallback) {
+            this.controller = controller;
+            this.asyncResultCallback = asyncResultCallback;
+        }
+
+        @Override
+        public Object call() throws Exception {
+            return bulkMethodInvoker.invoke(controller, new Object[]{new ArrayList<>(keys)});
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.util.Map;
+
+
+/**
+ * 批量方法返回Map，每个请求只输出自己key对应的值
+ */
+public class BatchResultCallback implements AsyncResultCallback {
+
+    static final String BATCH_KEY_ATTRIBUTE = BatchResultCallback.class.getName();
+
+    private final AsyncResultCallback asyncResultCallback;
+
+    public BatchResultCallback(AsyncResultCallback asyncResultCallback) {
+        this.asyncResultCallback = asyncResultCallback;
+    }
+
+    @Override
+    public void callback(Object invokeResult, ServletRequest request, ServletResponse response) throws Exception {
+        Object value = null;
+        if (invokeResult instanceof Map) {
+            value = ((Map) invokeResult).get(request.getAttribute(BATCH_KEY_ATTRIBUTE));
+        }
+        asyncResultCallback.callback(value, request, response);
+    }
+}
@@ -0,0 +1,52 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * 并发计数，超过上限时拒绝
+ */
+public class ConcurrencyLimiter {
+
+    private final int maxConcurrent;
+    private final AtomicInteger current = new AtomicInteger();
+
+
+    //maxConcurrent小于等于0表示不限制，只计数
+    public ConcurrencyLimiter(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+
+    public boolean tryAcquire() {
+        return tryAcquire(maxConcurrent);
+    }
+
+
+    public boolean tryAcquire(int maxConcurrent) {
+        while (true) {
+            int count = current.get();
+            if (maxConcurrent > 0 && count >= maxConcurrent) {
+                return false;
+            }
+            if (current.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+
+    public void release() {
+        current.decrementAndGet();
+    }
+
+
+    public int getCurrent() {
+        return current.get();
+    }
+
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+}
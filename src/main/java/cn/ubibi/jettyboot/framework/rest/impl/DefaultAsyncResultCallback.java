@@ -1,6 +1,8 @@
 package cn.ubibi.jettyboot.framework.rest.impl;
 
+import cn.ubibi.jettyboot.framework.rest.ifs.ControllerAspect;
 import cn.ubibi.jettyboot.framework.rest.ifs.HttpParsedRequest;
+import cn.ubibi.jettyboot.framework.slot.SlotComponentManager;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
@@ -9,14 +11,19 @@ import java.lang.reflect.Method;
 
 public class DefaultAsyncResultCallback implements AsyncResultCallback {
     private Method method;
-    private String context;
+    private ControllerAspect[] controllerAspects;
     public DefaultAsyncResultCallback(Method method,String context) {
         this.method  = method;
-        this.context = context;
+        this.controllerAspects = SlotComponentManager.getInstance().getControllerAspects(context).toArray(new ControllerAspect[0]);
+    }
+
+    public DefaultAsyncResultCallback(Method method, ControllerAspect[] controllerAspects) {
+        this.method = method;
+        this.controllerAspects = controllerAspects;
     }
 
     @Override
     public void callback(Object invokeResult, ServletRequest request, ServletResponse response) throws Exception {
-        ResultRenderMisc.renderAndAfterInvoke(invokeResult,method,(HttpParsedRequest) request,(HttpServletResponse) response,context);
+        ResultRenderMisc.renderAndAfterInvoke(invokeResult,method,(HttpParsedRequest) request,(HttpServletResponse) response,controllerAspects);
     }
 }
@@ -1,18 +1,22 @@
 package cn.ubibi.jettyboot.framework.rest.impl;
 
 import cn.ubibi.jettyboot.framework.commons.CollectionUtils;
-import cn.ubibi.jettyboot.framework.commons.Constants;
 import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
-import cn.ubibi.jettyboot.framework.commons.IOUtils;
+import cn.ubibi.jettyboot.framework.commons.StringUtils;
+import cn.ubibi.jettyboot.framework.rest.bind.ParamsBindingPlan;
 import cn.ubibi.jettyboot.framework.rest.ifs.HttpParsedRequest;
+import cn.ubibi.jettyboot.framework.rest.route.RouteMatch;
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.util.TypeUtils;
 
 import javax.servlet.*;
 import javax.servlet.http.*;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.security.Principal;
 import java.util.*;
@@ -21,21 +25,37 @@ public class DefaultHttpParsedRequest implements HttpParsedRequest {
 
     protected String matchedControllerPath;
     protected HttpServletRequest httpServletRequest;
+    protected RouteMatch routeMatch;
     protected Map<String, String> pathVariable;
     protected Map<String, Object> aspectVariable;
     protected byte[] _requestBody = null;
+    protected ByteBuffer _requestBodyBuffer = null;
+    protected boolean _requestBodyRead = false;
+
+    //解析后的请求内容，RPC参数、@RequestBody和Aspect共用，随请求对象一起释放
+    protected Object _requestBodyJSON = null;
+    protected boolean _requestBodyJSONParsed = false;
+    protected Map<Type, Object> _requestBodyObjects = null;
 
 
     public DefaultHttpParsedRequest(HttpServletRequest httpServletRequest, String matchedControllerPat) {
         this.httpServletRequest = httpServletRequest;
         this.matchedControllerPath = matchedControllerPat;
-        this.pathVariable = parsePathVariable();
+        this.routeMatch = getRouteMatch();
         this.aspectVariable = new HashMap<>();
     }
 
 
     @Override
     public String getPathVariable(String name) {
+        if (this.routeMatch != null) {
+            return this.routeMatch.getPathVariable(name);
+        }
+
+        //没有经过路由表匹配的情况，例如自定义了HttpPathComparator
+        if (this.pathVariable == null) {
+            this.pathVariable = parsePathVariable();
+        }
         return this.pathVariable.get(name);
     }
 
@@ -85,33 +105,101 @@ public class DefaultHttpParsedRequest implements HttpParsedRequest {
             return this._requestBody;
         }
 
+        ByteBuffer buffer = readRequestBodyBuffer();
+        if (buffer == null) {
+            return null;
+        }
+
+        //缓冲区会在请求结束时归还，这里返回一份拷贝
+        byte[] bytes = new byte[buffer.remaining()];
+        System.arraycopy(buffer.array(), buffer.arrayOffset() + buffer.position(), bytes, 0, bytes.length);
+        this._requestBody = bytes;
+        return bytes;
+    }
+
 
-        int len = httpServletRequest.getContentLength();
-        if (len <= 0) {
+    @Override
+    public ByteBuffer getRequestBodyBuffer() throws Exception {
+        ByteBuffer buffer = readRequestBodyBuffer();
+        if (buffer == null) {
             return null;
         }
-        if (len > FrameworkConfig.getInstance().getMaxRequestBodySize()) {
-            throw new Exception("RequestBodyTooLarge");
+        return buffer.asReadOnlyBuffer();
+    }
+
+
+    //从缓冲池读取，只读取一次
+    private ByteBuffer readRequestBodyBuffer() throws Exception {
+        if (this._requestBodyRead) {
+            return this._requestBodyBuffer;
         }
 
-        ServletInputStream inputStream = httpServletRequest.getInputStream();
+        this._requestBodyRead = true;
+        this._requestBodyBuffer = RequestBodyReader.read(httpServletRequest, FrameworkConfig.getInstance().getMaxRequestBodySize());
+        return this._requestBodyBuffer;
+    }
 
-        byte[] buffer = IOUtils.inputStreamToByteArray(inputStream);
 
-        inputStream.close();
+    @Override
+    public String getRequestBodyAsString(Charset charset) throws Exception {
+        if (this._requestBody != null) {
+            return new String(this._requestBody, charset);
+        }
 
-        this._requestBody = buffer;
-        return buffer;
+        ByteBuffer buffer = readRequestBodyBuffer();
+        if (buffer == null) {
+            return null;
+        }
+        return new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), charset);
     }
 
 
+    /**
+     * 从缓冲池中的请求内容直接反序列化，不生成中间的byte[]、String和JSON树，之后仍然可以获取原始内容。
+     * 同一个类型只解析一次，已经解析过JSON树时直接从树转换。
+     */
     @Override
-    public String getRequestBodyAsString(Charset charset) throws Exception {
-        byte[] bodyBytes = this.getRequestBody();
-        if (bodyBytes == null) {
+    public Object getRequestBodyAsObject(Type type, Charset charset) throws Exception {
+        if (this._requestBodyObjects != null && this._requestBodyObjects.containsKey(type)) {
+            return this._requestBodyObjects.get(type);
+        }
+
+        Object object;
+        if (this._requestBodyJSONParsed) {
+            object = TypeUtils.cast(this._requestBodyJSON, type, ParserConfig.getGlobalInstance());
+        } else {
+            object = parseRequestBodyAsObject(type, charset);
+        }
+
+        if (this._requestBodyObjects == null) {
+            this._requestBodyObjects = new HashMap<>(4);
+        }
+        this._requestBodyObjects.put(type, object);
+        return object;
+    }
+
+
+    @Override
+    public Object getRequestBodyAsJSON() throws Exception {
+        if (!this._requestBodyJSONParsed) {
+            String jsonString = getRequestBodyAsString(FrameworkConfig.getInstance().getRequestBodyCharset());
+            this._requestBodyJSON = StringUtils.isEmpty(jsonString) ? null : JSON.parse(jsonString);
+            this._requestBodyJSONParsed = true;
+        }
+        return this._requestBodyJSON;
+    }
+
+
+    private Object parseRequestBodyAsObject(Type type, Charset charset) throws Exception {
+        if (this._requestBody != null) {
+            return JSON.parseObject(this._requestBody, 0, this._requestBody.length, charset, type);
+        }
+
+        ByteBuffer buffer = readRequestBodyBuffer();
+        if (buffer == null) {
             return null;
         }
-        return new String(bodyBytes, charset);
+        return JSON.parseObject(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), charset, type);
     }
 
 
@@ -127,26 +215,18 @@ public class DefaultHttpParsedRequest implements HttpParsedRequest {
     }
 
 
+    /**
+     * 使用每个类编译好的ParamsBindingPlan，直接转换参数写入字段
+     */
     @Override
     public <T> T getParameterValuesAsObject(Class<? extends T> clazz) {
-        Map<String, Object> map2 = new HashMap<>();
-        Field[] fields = clazz.getDeclaredFields();
-        for (int i = 0; i < fields.length; i++) {
-            Field field = fields[i];
-            field.setAccessible(true);
-            String fieldName = field.getName();
-            Class<?> fieldType = field.getType();
-
-            if (fieldType.isArray() || List.class.isAssignableFrom(fieldType)) {
-                map2.put(fieldName, httpServletRequest.getParameterValues(fieldName));
-            } else {
-                map2.put(fieldName, httpServletRequest.getParameter(fieldName));
-            }
+        try {
+            return (T) ParamsBindingPlan.getInstance(clazz).bind(httpServletRequest);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
         }
-
-        String mapString = JSON.toJSONString(map2);
-        T obj = JSON.parseObject(mapString, clazz);
-        return obj;
     }
 
 
@@ -176,34 +256,20 @@ public class DefaultHttpParsedRequest implements HttpParsedRequest {
     }
 
 
+    //路由匹配时已经记录了路径中参数的位置
+    private RouteMatch getRouteMatch() {
+        Object routeMatch = httpServletRequest.getAttribute(RouteMatch.REQUEST_ATTRIBUTE);
+        if (routeMatch instanceof RouteMatch && matchedControllerPath.equals(((RouteMatch) routeMatch).getTargetPath())) {
+            return (RouteMatch) routeMatch;
+        }
+        return null;
+    }
+
+
     //解析路径中的参数
     private Map<String, String> parsePathVariable() {
         String pathInfo = httpServletRequest.getPathInfo();
-        String[] pathInfoArray = pathInfo.split(Constants.PATH_SPLIT);
-        String[] targetPathArray = matchedControllerPath.split(Constants.PATH_SPLIT);
-
-        Map<String, String> map = new HashMap<>();
-        for (int i = 0; i < targetPathArray.length; i++) {
-            String p1 = targetPathArray[i];
-            String p2 = pathInfoArray[i];
-
-            /**
-             * 支持两种形式
-             * @see DefaultHttpPathComparator
-             */
-            if (p1.startsWith(":")) {
-                String k = p1.replace(':', ' ');
-                k = k.trim();
-                map.put(k, p2);
-            } else if (p1.startsWith("{") && p1.endsWith("}")) {
-                String k = p1.replace('{', ' ').replace('}', ' ');
-                k = k.trim();
-                map.put(k, p2);
-            }
-
-
-        }
-        return map;
+        return DefaultHttpPathComparator.getRouteTemplate(matchedControllerPath).getPathVariables(pathInfo);
     }
 
 
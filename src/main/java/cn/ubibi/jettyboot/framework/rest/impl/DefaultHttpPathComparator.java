@@ -1,15 +1,16 @@
 package cn.ubibi.jettyboot.framework.rest.impl;
 
-import cn.ubibi.jettyboot.framework.commons.CollectionUtils;
+import cn.ubibi.jettyboot.framework.commons.cache.BoundedCache;
 import cn.ubibi.jettyboot.framework.rest.ifs.HttpPathComparator;
-
-import java.util.HashMap;
-import java.util.List;
+import cn.ubibi.jettyboot.framework.rest.route.RouteTemplate;
 
 public class DefaultHttpPathComparator implements HttpPathComparator {
 
-    //提高对象重复利用
-    private static final HashMap<String, List<String>> targetPathSplitCache = new HashMap<>();
+    //Controller的路径由ControllerMethodHandler自己持有编译好的模板，这里只缓存其他地方传进来的路径
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    private static final BoundedCache<String, RouteTemplate> routeTemplateCache = new BoundedCache<>(MAX_CACHE_SIZE);
+
 
     @Override
     public boolean isMatch(String targetPath, String requestPathInfo) {
@@ -21,47 +22,24 @@ public class DefaultHttpPathComparator implements HttpPathComparator {
         //   /user/:id
         //   /user/{name}/3232
         //   /user/23332
-        List<String> path1Array = splitTargetPath(targetPath);
-        List<String> path2Array = CollectionUtils.removeEmptyString(requestPathInfo.split("/"));
-        if (path1Array.size() != path2Array.size()) {
-            return false;
-        }
-
-        for (int i = 0; i < path1Array.size(); i++) {
-            String pp1 = path1Array.get(i);
-            String pp2 = path2Array.get(i);
-            if (!isPathEquals(pp1, pp2)) {
-                return false;
-            }
-        }
-
-        return true;
+        return getRouteTemplate(targetPath).isMatch(requestPathInfo);
     }
 
 
-    private List<String> splitTargetPath(String targetPath) {
-        List<String> result = targetPathSplitCache.get(targetPath);
-        if (result == null) {
-            result = CollectionUtils.removeEmptyString(targetPath.split("/"));
-            targetPathSplitCache.put(targetPath, result);
+    /**
+     * 缓存满了之后淘汰最早加入的模板
+     */
+    public static RouteTemplate getRouteTemplate(String targetPath) {
+        RouteTemplate routeTemplate = routeTemplateCache.get(targetPath);
+        if (routeTemplate == null) {
+            routeTemplate = new RouteTemplate(targetPath);
+            routeTemplateCache.put(targetPath, routeTemplate);
         }
-        return result;
+        return routeTemplate;
     }
 
 
-    private boolean isPathEquals(String pp1, String pp2) {
-        if (pp1.equals(pp2)) {
-            return true;
-        }
-
-        /**
-         * 支持两种形式的
-         * @see DefaultHttpParsedRequest
-         */
-        if (pp1.startsWith(":") || (pp1.startsWith("{") && pp1.endsWith("}"))) {
-            return true;
-        }
-
-        return false;
+    static int getCacheSize() {
+        return routeTemplateCache.size();
     }
 }
@@ -1,6 +1,8 @@
 package cn.ubibi.jettyboot.framework.rest.impl;
 
 import cn.ubibi.jettyboot.framework.commons.cache.CacheAnnotationUtils;
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvoker;
+import cn.ubibi.jettyboot.framework.commons.invoke.MethodInvokers;
 
 import java.lang.reflect.Method;
 import java.util.concurrent.Callable;
@@ -10,9 +12,15 @@ public class InvokeResultCallable implements Callable {
     private Method method;
     private Object[] paramsObjects;
     private Object controller;
+    private MethodInvoker methodInvoker;
 
     public InvokeResultCallable(Method method, Object[] paramsObjects, Object controller) {
+        this(method, MethodInvokers.getMethodInvoker(method), paramsObjects, controller);
+    }
+
+    public InvokeResultCallable(Method method, MethodInvoker methodInvoker, Object[] paramsObjects, Object controller) {
         this.method = method;
+        this.methodInvoker = methodInvoker;
         this.paramsObjects = paramsObjects;
         this.controller = controller;
     }
@@ -25,12 +33,12 @@ public class InvokeResultCallable implements Callable {
             Object invokeResult = CacheAnnotationUtils.getResultFromCacheAnnotation(method, paramsObjects);
             if (invokeResult == null) {
                 //方法调用
-                invokeResult = method.invoke(controller, paramsObjects);
+                invokeResult = methodInvoker.invoke(controller, paramsObjects);
                 CacheAnnotationUtils.saveResultToCacheAnnotation(method, paramsObjects, invokeResult);
             }
             return invokeResult;
         } else {
-            return method.invoke(controller, paramsObjects);
+            return methodInvoker.invoke(controller, paramsObjects);
         }
     }
 }
@@ -1,8 +1,23 @@
 package cn.ubibi.jettyboot.framework.rest.impl;
 
+import cn.ubibi.jettyboot.framework.commons.AsyncResponseWriter;
+import cn.ubibi.jettyboot.framework.commons.CharsetEncodingWriter;
+import cn.ubibi.jettyboot.framework.commons.CompressUtils;
+import cn.ubibi.jettyboot.framework.commons.ETagUtils;
 import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
+import cn.ubibi.jettyboot.framework.commons.ResponseUtils;
 import cn.ubibi.jettyboot.framework.rest.impl.base.TextRespRenderAdapter;
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.JSONSerializer;
+import com.alibaba.fastjson.serializer.SerializeWriter;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
 
 public class JsonRender extends TextRespRenderAdapter {
 
@@ -13,6 +28,113 @@ public class JsonRender extends TextRespRenderAdapter {
     }
 
 
+    /**
+     * 序列化到fastjson的SerializeWriter中(使用线程内复用的缓冲区)，不生成中间的String。
+     * 小的结果编码成字节后一次写出，大的结果按固定大小的缓冲区分块编码，使用chunked写入输出流(需要压缩时边压缩边输出)。
+     * 只有生成ETag或者判断是否异步写出需要字节数时，才先分块编码计算一次字节数和CRC32，不保存编码结果。
+     * 字节数超过FrameworkConfig.asyncWriteThreshold时编码成字节后异步写出，因为内容要在当前线程之外保留。
+     * GET请求会生成ETag，与If-None-Match相同时返回304。
+     */
+    @Override
+    public void doRender(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        FrameworkConfig frameworkConfig = FrameworkConfig.getInstance();
+        int streamThreshold = frameworkConfig.getJsonStreamRenderThreshold();
+        if (streamThreshold < 0) {
+            super.doRender(request, response);
+            return;
+        }
+
+        Charset charset = frameworkConfig.getCharset();
+        SerializeWriter out = new SerializeWriter(null, JSON.DEFAULT_GENERATE_FEATURE, SerializerFeature.EMPTY);
+        try {
+            new JSONSerializer(out).write(this.data);
+
+            if (out.size() <= streamThreshold) {
+                writeContentBytes(request, response, out.toBytes(charset));
+                return;
+            }
+
+            //每个字符至少编码成一个字节，最多maxBytesPerChar个字节，不需要计算就能确定是否异步写出时不计算
+            long minContentLength = out.size();
+            long maxContentLength = (long) Math.ceil(out.size() * (double) charset.newEncoder().maxBytesPerChar());
+            if (AsyncResponseWriter.isAsyncWritable(request, minContentLength)) {
+                writeContentBytes(request, response, out.toBytes(charset));
+                return;
+            }
+
+            boolean isETagSupported = isETagSupported(request, response);
+            boolean isAsyncPossible = AsyncResponseWriter.isAsyncWritable(request, maxContentLength);
+            long contentLength = -1;
+            if (isETagSupported || isAsyncPossible) {
+
+                //字节数与字符数不同，按字节数判断；ETag与小的结果一样按编码后的字节计算
+                ContentDigestOutputStream contentDigest = new ContentDigestOutputStream(isETagSupported);
+                encodeTo(out, contentDigest, charset);
+                contentLength = contentDigest.count;
+
+                if (AsyncResponseWriter.isAsyncWritable(request, contentLength)) {
+                    writeContentBytes(request, response, out.toBytes(charset));
+                    return;
+                }
+
+                if (isETagSupported && checkNotModified(request, response, ETagUtils.toWeakETag(contentDigest.crc32.getValue(), contentLength))) {
+                    return;
+                }
+            }
+
+            //长度未知时按最小长度判断是否压缩
+            String contentEncoding = negotiateContentEncoding(request, contentLength < 0 ? minContentLength : contentLength);
+            writeHeaders(request, response, contentEncoding == null ? contentLength : -1, contentEncoding);
+            OutputStream outputStream = response.getOutputStream();
+            if (contentEncoding != null) {
+                outputStream = CompressUtils.toCompressStream(outputStream, contentEncoding);
+            }
+            encodeTo(out, outputStream, charset);
+        } finally {
+            out.close();
+        }
+
+        ResponseUtils.tryClose(response);
+    }
+
+
+    //分块编码，写完后关闭outputStream
+    private static void encodeTo(SerializeWriter out, OutputStream outputStream, Charset charset) throws IOException {
+        CharsetEncodingWriter encodingWriter = new CharsetEncodingWriter(outputStream, charset);
+        out.writeTo(encodingWriter);
+        encodingWriter.close();
+    }
+
+
+    //只计算字节数和CRC32，不保存内容
+    private static class ContentDigestOutputStream extends OutputStream {
+
+        private final CRC32 crc32;
+        private long count = 0;
+
+        ContentDigestOutputStream(boolean isCrc32) {
+            this.crc32 = isCrc32 ? new CRC32() : null;
+        }
+
+        @Override
+        public void write(int b) {
+            count++;
+            if (crc32 != null) {
+                crc32.update(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) {
+            count = count + len;
+            if (crc32 != null) {
+                crc32.update(bytes, off, len);
+            }
+        }
+    }
+
+
     @Override
     public byte[] getContentBytes() {
         String jsonText = JSON.toJSONString(this.data);
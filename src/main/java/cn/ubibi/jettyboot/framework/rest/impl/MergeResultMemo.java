@@ -0,0 +1,98 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
+import cn.ubibi.jettyboot.framework.commons.cache.BoundedCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * AsyncMergeMethod.linger的结果保留区：任务执行完后，结果在linger毫秒内直接交给相同taskKey的请求，不再调用方法。
+ * <p>
+ * 与CacheManager分开存放，使用无锁的BoundedCache，最多保留FrameworkConfig.mergeLingerMaxSize个结果(第一次使用时读取)，
+ * 超过时淘汰最早放入的，过期的结果在读取时删除。
+ */
+public class MergeResultMemo {
+
+    private static final AtomicLong hitCount = new AtomicLong();
+    private static final AtomicLong missCount = new AtomicLong();
+
+    private static volatile BoundedCache<String, MemoEntry> memoCache = null;
+
+
+    /**
+     * @return 没有或已经过期时返回null，命中时返回的MemoEntry中的结果可以是null
+     */
+    public static MemoEntry get(String taskKey) {
+        BoundedCache<String, MemoEntry> memoCache = getMemoCache();
+        MemoEntry entry = memoCache.get(taskKey);
+        if (entry != null && entry.expireTimeMs <= System.currentTimeMillis()) {
+            memoCache.remove(taskKey, entry);
+            entry = null;
+        }
+        if (entry != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+
+    public static void put(String taskKey, Object invokeResult, long lingerMs) {
+        MemoEntry entry = new MemoEntry(invokeResult, System.currentTimeMillis() + lingerMs);
+        getMemoCache().put(taskKey, entry);
+    }
+
+
+    public static void clear() {
+        getMemoCache().clear();
+    }
+
+
+    public static int getSize() {
+        return getMemoCache().size();
+    }
+
+    public static long getHitCount() {
+        return hitCount.get();
+    }
+
+    public static long getMissCount() {
+        return missCount.get();
+    }
+
+    public static long getEvictionCount() {
+        return getMemoCache().getEvictionCount();
+    }
+
+
+    private static BoundedCache<String, MemoEntry> getMemoCache() {
+        BoundedCache<String, MemoEntry> cache = MergeResultMemo.memoCache;
+        if (cache == null) {
+            synchronized (MergeResultMemo.class) {
+                cache = MergeResultMemo.memoCache;
+                if (cache == null) {
+                    cache = new BoundedCache<>(FrameworkConfig.getInstance().getMergeLingerMaxSize());
+                    MergeResultMemo.memoCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+
+    public static class MemoEntry {
+        private final Object invokeResult;
+        private final long expireTimeMs;
+
+        MemoEntry(Object invokeResult, long expireTimeMs) {
+            this.invokeResult = invokeResult;
+            this.expireTimeMs = expireTimeMs;
+        }
+
+        public Object getInvokeResult() {
+            return invokeResult;
+        }
+    }
+}
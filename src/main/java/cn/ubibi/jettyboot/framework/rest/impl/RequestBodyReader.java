@@ -0,0 +1,149 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import java.nio.ByteBuffer;
+
+
+/**
+ * 使用缓冲池读取请求内容，支持Content-Length和chunked两种方式，读取过程中检查最大长度。
+ * <p>
+ * 缓冲区在请求结束时归还(RequestHandler中调用releaseOnComplete)，之后不能再使用读取到的ByteBuffer。
+ */
+public class RequestBodyReader {
+
+    private static final String BODY_BUFFER_ATTRIBUTE = RequestBodyReader.class.getName();
+
+    //chunked请求不知道长度，从这个大小开始按两倍扩大
+    private static final int CHUNKED_INITIAL_SIZE = 4096;
+
+    //只缓存64K以内的缓冲区，每种大小最多8个，池中最多占用约17M，更大的内容每次重新分配
+    private static final ByteBufferPool BUFFER_POOL = new ArrayByteBufferPool(0, 1024, 64 * 1024, 8);
+
+    //数组长度的上限
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+
+    /**
+     * @param maxSize 超过时抛出RequestBodyTooLarge
+     * @return 没有内容时返回null，position为0，limit为内容长度
+     */
+    public static ByteBuffer read(ServletRequest request, int maxSize) throws Exception {
+
+        long contentLength = request.getContentLengthLong();
+        if (contentLength == 0) {
+            return null;
+        }
+        if (contentLength > maxSize) {
+            throw new Exception("RequestBodyTooLarge");
+        }
+
+        boolean isChunked = contentLength < 0;
+
+        //chunked请求多读一个字节来判断是否超过maxSize
+        int readLimit = (int) Math.min((long) maxSize + 1, MAX_ARRAY_SIZE);
+        int capacity = isChunked ? Math.min(CHUNKED_INITIAL_SIZE, readLimit) : (int) contentLength;
+
+        ByteBuffer buffer = BUFFER_POOL.acquire(capacity, false);
+        int size = 0;
+
+        ServletInputStream inputStream = request.getInputStream();
+        try {
+            while (true) {
+
+                if (size == capacity) {
+                    if (!isChunked) {
+                        break;
+                    }
+                    if (capacity >= readLimit) {
+                        throw new Exception("RequestBodyTooLarge");
+                    }
+                    capacity = (int) Math.min((long) capacity * 2, readLimit);
+                    buffer = grow(buffer, size, capacity);
+                }
+
+                int read = inputStream.read(buffer.array(), buffer.arrayOffset() + size, capacity - size);
+                if (read < 0) {
+                    break;
+                }
+
+                size = size + read;
+                if (size > maxSize) {
+                    throw new Exception("RequestBodyTooLarge");
+                }
+            }
+        } catch (Exception e) {
+            BUFFER_POOL.release(buffer);
+            throw e;
+        } finally {
+            inputStream.close();
+        }
+
+        if (size == 0) {
+            BUFFER_POOL.release(buffer);
+            return null;
+        }
+
+        buffer.limit(size);
+        buffer.position(0);
+
+        request.setAttribute(BODY_BUFFER_ATTRIBUTE, buffer);
+        return buffer;
+    }
+
+
+    private static ByteBuffer grow(ByteBuffer buffer, int size, int capacity) {
+        ByteBuffer newBuffer = BUFFER_POOL.acquire(capacity, false);
+        System.arraycopy(buffer.array(), buffer.arrayOffset(), newBuffer.array(), newBuffer.arrayOffset(), size);
+        BUFFER_POOL.release(buffer);
+        return newBuffer;
+    }
+
+
+    /**
+     * 同步处理的请求立即归还，异步的请求在complete之后归还
+     */
+    public static void releaseOnComplete(final ServletRequest request) {
+        if (request.getAttribute(BODY_BUFFER_ATTRIBUTE) == null) {
+            return;
+        }
+
+        if (!request.isAsyncStarted()) {
+            release(request);
+            return;
+        }
+
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                release(request);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+
+    private static void release(ServletRequest request) {
+        Object buffer = request.getAttribute(BODY_BUFFER_ATTRIBUTE);
+        if (buffer instanceof ByteBuffer) {
+            request.removeAttribute(BODY_BUFFER_ATTRIBUTE);
+            BUFFER_POOL.release((ByteBuffer) buffer);
+        }
+    }
+}
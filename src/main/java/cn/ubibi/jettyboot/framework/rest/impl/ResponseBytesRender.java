@@ -0,0 +1,104 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import cn.ubibi.jettyboot.framework.rest.impl.base.TextRespRenderAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * 已经渲染好的文本响应，内容、压缩后的内容和ETag都只计算一次，可以被多个请求共享。
+ * 可以带上状态和额外的头信息(如afterInvoke中设置的Set-Cookie)，输出时一起设置。
+ */
+public class ResponseBytesRender extends TextRespRenderAdapter {
+
+    private final byte[] contentBytes;
+    private final String contentType;
+    private final String cacheControl;
+    private final int status;
+    private final Map<String, List<String>> headers;
+
+
+    public ResponseBytesRender(byte[] contentBytes, String contentType, String cacheControl) {
+        this(contentBytes, contentType, cacheControl, HttpServletResponse.SC_OK, Collections.<String, List<String>>emptyMap());
+    }
+
+
+    public ResponseBytesRender(byte[] contentBytes, String contentType, String cacheControl, int status, Map<String, List<String>> headers) {
+        this.contentBytes = contentBytes;
+        this.contentType = contentType;
+        this.cacheControl = cacheControl;
+        this.status = status;
+        this.headers = headers;
+    }
+
+
+    public static ResponseBytesRender of(TextRespRenderAdapter render) {
+        if (render instanceof ResponseBytesRender) {
+            return (ResponseBytesRender) render;
+        }
+        return new ResponseBytesRender(render.getContentBytes(), render.getContentType(), render.getCacheControl());
+    }
+
+
+    public static ResponseBytesRender of(TextRespRenderAdapter render, int status, Map<String, List<String>> headers) {
+        return new ResponseBytesRender(render.getContentBytes(), render.getContentType(), render.getCacheControl(), status, headers);
+    }
+
+
+    @Override
+    public void doRender(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            List<String> values = entry.getValue();
+            for (int i = 0; i < values.size(); i++) {
+                if (i == 0) {
+                    response.setHeader(entry.getKey(), values.get(i));
+                } else {
+                    response.addHeader(entry.getKey(), values.get(i));
+                }
+            }
+        }
+        super.doRender(request, response);
+    }
+
+
+    //不是200的响应不使用ETag和304
+    @Override
+    protected boolean isETagSupported(HttpServletRequest request, HttpServletResponse response) {
+        return status == HttpServletResponse.SC_OK && super.isETagSupported(request, response);
+    }
+
+
+    @Override
+    protected void writeHeaders(HttpServletRequest request, HttpServletResponse response, long contentLength, String contentEncoding) {
+        super.writeHeaders(request, response, contentLength, contentEncoding);
+        if (status != HttpServletResponse.SC_OK) {
+            response.setStatus(status);
+        }
+    }
+
+
+    @Override
+    protected boolean isContentImmutable() {
+        return true;
+    }
+
+    @Override
+    public byte[] getContentBytes() {
+        return contentBytes;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public String getCacheControl() {
+        return cacheControl;
+    }
+}
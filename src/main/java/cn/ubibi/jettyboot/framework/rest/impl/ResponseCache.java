@@ -0,0 +1,137 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import cn.ubibi.jettyboot.framework.commons.cache.CacheAnnotationUtils;
+import cn.ubibi.jettyboot.framework.commons.cache.CacheManager;
+import cn.ubibi.jettyboot.framework.commons.cache.CacheMethod;
+
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Controller方法的响应缓存，@CacheMethod(cacheResponse = true) 时启用。
+ * 缓存的是渲染后的ResponseBytesRender(状态、方法和afterInvoke设置的头信息、内容)，存放在CacheManager中，Key与对象缓存的Key区分开。
+ * 命中时只执行Aspect的beforeInvoke，不执行afterInvoke和afterRender。
+ * <p>
+ * 设置了Set-Cookie、认证质询或者Cache-Control为private/no-store的响应是针对某个用户的，不会被缓存。
+ * cacheKey中不能包含#，它用来分隔cacheKey和参数，使失效时"user"不会匹配到"userList"。
+ */
+public class ResponseCache {
+
+    private static final String RESPONSE_CACHE_KEY_PREFIX = "resp:";
+    private static final String KEY_DELIMITER = "#";
+
+    //这些头是针对某个用户的，不能输出给其他请求
+    private static final String[] PRIVATE_HEADER_NAMES = {"Set-Cookie", "Set-Cookie2", "WWW-Authenticate", "Proxy-Authenticate"};
+
+    private static final AtomicLong hitCount = new AtomicLong();
+    private static final AtomicLong missCount = new AtomicLong();
+
+
+    //与@CacheMethod对象缓存的Key一致，只是前缀不同，结尾加上分隔符
+    public static String toCacheKeyPrefix(Method method, CacheMethod cacheAnnotation) {
+        return RESPONSE_CACHE_KEY_PREFIX + CacheAnnotationUtils.toCacheKeyPrefix(method, cacheAnnotation) + KEY_DELIMITER;
+    }
+
+
+    public static ResponseBytesRender get(String key) {
+        ResponseBytesRender render = CacheManager.getObject(key);
+        if (render != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return render;
+    }
+
+
+    public static void put(String key, ResponseBytesRender render, long activeTime) {
+        CacheManager.putObject(key, render, activeTime);
+    }
+
+
+    /**
+     * 使一个方法的所有响应缓存失效
+     */
+    public static void invalidate(Method method) {
+        CacheMethod cacheAnnotation = method.getDeclaredAnnotation(CacheMethod.class);
+        if (cacheAnnotation != null) {
+            CacheManager.removeObjectsByPrefix(toCacheKeyPrefix(method, cacheAnnotation));
+        }
+    }
+
+
+    /**
+     * @param cacheKey @CacheMethod中的cacheKey，会删除所有参数对应的缓存
+     */
+    public static void invalidate(String cacheKey) {
+        CacheManager.removeObjectsByPrefix(RESPONSE_CACHE_KEY_PREFIX + CacheAnnotationUtils.toCacheKeyPrefix(cacheKey) + KEY_DELIMITER);
+    }
+
+
+    public static void invalidateAll() {
+        CacheManager.removeObjectsByPrefix(RESPONSE_CACHE_KEY_PREFIX);
+    }
+
+
+    public static Map<String, List<String>> getHeaders(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (!headers.containsKey(name)) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+
+
+    //与调用前相比新增或修改的头信息
+    public static Map<String, List<String>> getChangedHeaders(Map<String, List<String>> headersBefore, HttpServletResponse response) {
+        Map<String, List<String>> changedHeaders = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : getHeaders(response).entrySet()) {
+            if (!entry.getValue().equals(headersBefore.get(entry.getKey()))) {
+                changedHeaders.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return changedHeaders;
+    }
+
+
+    /**
+     * @param changedHeaders 方法和afterInvoke设置的头信息
+     * @return 有针对某个用户的头信息时返回false
+     */
+    public static boolean isCacheable(Map<String, List<String>> changedHeaders) {
+        for (Map.Entry<String, List<String>> entry : changedHeaders.entrySet()) {
+            String name = entry.getKey();
+            for (String privateHeaderName : PRIVATE_HEADER_NAMES) {
+                if (privateHeaderName.equalsIgnoreCase(name)) {
+                    return false;
+                }
+            }
+            if ("Cache-Control".equalsIgnoreCase(name)) {
+                for (String value : entry.getValue()) {
+                    String lowerValue = value.toLowerCase();
+                    if (lowerValue.contains("private") || lowerValue.contains("no-store")) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+
+    public static long getHitCount() {
+        return hitCount.get();
+    }
+
+    public static long getMissCount() {
+        return missCount.get();
+    }
+}
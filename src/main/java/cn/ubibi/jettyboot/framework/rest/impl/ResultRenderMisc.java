@@ -15,20 +15,32 @@ public class ResultRenderMisc {
     public static void doRender(Object invokeResult, HttpParsedRequest httpParsedRequest, HttpServletResponse response) throws IOException {
         if (invokeResult instanceof VoidResult) {
             //do nothing
-        } else if (invokeResult instanceof ResponseRender) {
-            ((ResponseRender) invokeResult).doRender(httpParsedRequest, response);
+        } else {
+            toResponseRender(invokeResult).doRender(httpParsedRequest, response);
+        }
+    }
+
+
+    public static ResponseRender toResponseRender(Object invokeResult) {
+        if (invokeResult instanceof ResponseRender) {
+            return (ResponseRender) invokeResult;
         } else if (invokeResult instanceof String) {
-            new TextRender(invokeResult.toString()).doRender(httpParsedRequest, response);
+            return new TextRender(invokeResult.toString());
         } else {
-            new JsonRender(invokeResult).doRender(httpParsedRequest, response);
+            return new JsonRender(invokeResult);
         }
     }
 
 
     public static void renderAndAfterInvoke(Object invokeResult, Method method, HttpParsedRequest httpParsedRequest, HttpServletResponse response,String context) throws Exception {
+        List<ControllerAspect> methodWrappers = SlotComponentManager.getInstance().getControllerAspects(context);
+        renderAndAfterInvoke(invokeResult, method, httpParsedRequest, response, methodWrappers.toArray(new ControllerAspect[methodWrappers.size()]));
+    }
+
+
+    public static void renderAndAfterInvoke(Object invokeResult, Method method, HttpParsedRequest httpParsedRequest, HttpServletResponse response, ControllerAspect[] methodWrappers) throws Exception {
 
         //Aspect后置
-        List<ControllerAspect> methodWrappers = SlotComponentManager.getInstance().getControllerAspects(context);
         for (ControllerAspect methodWrapper : methodWrappers) {
             methodWrapper.afterInvoke(method, httpParsedRequest, invokeResult, response);
         }
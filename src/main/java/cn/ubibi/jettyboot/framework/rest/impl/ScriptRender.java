@@ -3,22 +3,17 @@ package cn.ubibi.jettyboot.framework.rest.impl;
 import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
 import cn.ubibi.jettyboot.framework.rest.impl.base.TextRespRenderAdapter;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-
 public class ScriptRender extends TextRespRenderAdapter {
 
-    private String script;
+    private final String script;
 
     public ScriptRender(String script) {
         this.script = script;
     }
 
     @Override
-    public void doRender(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        response.setHeader("Cache-Control", "public, max-age=31536000");
-        super.doRender(request, response);
+    public String getCacheControl() {
+        return "public, max-age=31536000";
     }
 
 
@@ -28,6 +23,12 @@ public class ScriptRender extends TextRespRenderAdapter {
         return contentBytes;
     }
 
+    //文本不会再变化
+    @Override
+    protected boolean isContentImmutable() {
+        return true;
+    }
+
     @Override
     public String getContentType() {
         return "text/javascript";
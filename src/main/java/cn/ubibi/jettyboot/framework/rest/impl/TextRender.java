@@ -5,7 +5,7 @@ import cn.ubibi.jettyboot.framework.rest.impl.base.TextRespRenderAdapter;
 
 public class TextRender extends TextRespRenderAdapter {
 
-    private String text;
+    private final String text;
 
     public TextRender(String text) {
         this.text = text;
@@ -17,6 +17,12 @@ public class TextRender extends TextRespRenderAdapter {
         return contentBytes;
     }
 
+    //文本不会再变化
+    @Override
+    protected boolean isContentImmutable() {
+        return true;
+    }
+
     @Override
     public String getContentType() {
         return "text/html";
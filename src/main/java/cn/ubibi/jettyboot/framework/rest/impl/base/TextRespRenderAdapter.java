@@ -1,34 +1,59 @@
 package cn.ubibi.jettyboot.framework.rest.impl.base;
 
+import cn.ubibi.jettyboot.framework.commons.AsyncResponseWriter;
+import cn.ubibi.jettyboot.framework.commons.CompressUtils;
+import cn.ubibi.jettyboot.framework.commons.ETagUtils;
 import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
+import cn.ubibi.jettyboot.framework.commons.ResponseHeaders;
 import cn.ubibi.jettyboot.framework.commons.ResponseUtils;
 import cn.ubibi.jettyboot.framework.rest.ifs.ResponseRender;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Date;
 
 public abstract class TextRespRenderAdapter implements ResponseRender {
 
+    //内容不变的Render会缓存编码、压缩之后的结果和ETag，被@CacheMethod缓存时只需要计算一次
+    private volatile byte[] cachedContentBytes;
+    private volatile byte[] cachedGzipBytes;
+    private volatile byte[] cachedDeflateBytes;
+    private volatile String cachedETag;
+
+
     public void doRender(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeContentBytes(request, response, getRenderContentBytes(), isContentImmutable());
+    }
 
-        byte[] contentBytes = getContentBytes();
 
-        response.setContentType(getContentType() + "; charset=" + FrameworkConfig.getInstance().getCharset().name());
-        response.setHeader("Content-Length", "" + contentBytes.length);
-        response.setHeader("Server", FrameworkConfig.getInstance().getResponseServerName());
-        response.setHeader("Date", new Date().toGMTString());
-        response.setHeader("connection","close");
+    //一次写出全部内容，内容可变时不会缓存ETag和压缩结果
+    protected void writeContentBytes(HttpServletRequest request, HttpServletResponse response, byte[] contentBytes) throws IOException {
+        writeContentBytes(request, response, contentBytes, false);
+    }
 
-        if ("POST".equalsIgnoreCase(request.getMethod())) {
-            response.setHeader("Cache-Control", "no-cache");
-            response.setHeader("Expires", "Thu, 01 Jan 1970 00:00:00 GMT");
-            response.setHeader("Pragma", "no-cache");
+
+    private void writeContentBytes(HttpServletRequest request, HttpServletResponse response, byte[] contentBytes, boolean isImmutable) throws IOException {
+
+        if (isETagSupported(request, response)) {
+            String etag = getETag(contentBytes, isImmutable);
+            if (checkNotModified(request, response, etag)) {
+                return;
+            }
         }
 
+        String contentEncoding = negotiateContentEncoding(request, contentBytes.length);
+        if (contentEncoding != null) {
+            contentBytes = getCompressedBytes(contentBytes, contentEncoding, isImmutable);
+        }
+
+        writeHeaders(request, response, contentBytes.length, contentEncoding);
+
+        //大的内容异步写出，由AsyncResponseWriter结束请求
+        if (AsyncResponseWriter.isAsyncWritable(request, contentBytes.length)) {
+            AsyncResponseWriter.write(request, response, contentBytes);
+            return;
+        }
 
-        response.setStatus(HttpServletResponse.SC_OK);
         response.getOutputStream().write(contentBytes);
         response.getOutputStream().close();
 
@@ -36,6 +61,167 @@ public abstract class TextRespRenderAdapter implements ResponseRender {
     }
 
 
+    /**
+     * 只有GET/HEAD请求，而且Controller没有自己设置ETag时，才根据内容生成ETag
+     */
+    protected boolean isETagSupported(HttpServletRequest request, HttpServletResponse response) {
+        return FrameworkConfig.getInstance().isResponseETag() && ETagUtils.isConditionalMethod(request) && !response.containsHeader("ETag");
+    }
+
+
+    /**
+     * 设置ETag，如果与If-None-Match相同则返回304
+     *
+     * @return 已经返回了304
+     */
+    protected boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        if (ETagUtils.isNotModified(request, etag)) {
+            String cacheControl = getCacheControl();
+            if (cacheControl != null) {
+                response.setHeader("Cache-Control", cacheControl);
+            }
+            if (isCompressibleContentType()) {
+                ResponseHeaders.addVaryAcceptEncoding(response);
+            }
+            ResponseUtils.sendNotModified(request, response, etag);
+            return true;
+        }
+        response.setHeader("ETag", etag);
+        return false;
+    }
+
+
+    private String getETag(byte[] contentBytes, boolean isImmutable) {
+        if (!isImmutable) {
+            return ETagUtils.toWeakETag(contentBytes);
+        }
+
+        String etag = this.cachedETag;
+        if (etag == null) {
+            etag = ETagUtils.toWeakETag(contentBytes);
+            this.cachedETag = etag;
+        }
+        return etag;
+    }
+
+
+    /**
+     * 内容是否不会再变化，返回true时编码和压缩之后的结果会缓存在这个对象里
+     */
+    protected boolean isContentImmutable() {
+        return false;
+    }
+
+
+    private byte[] getRenderContentBytes() {
+        if (!isContentImmutable()) {
+            return getContentBytes();
+        }
+
+        byte[] contentBytes = this.cachedContentBytes;
+        if (contentBytes == null) {
+            contentBytes = getContentBytes();
+            this.cachedContentBytes = contentBytes;
+        }
+        return contentBytes;
+    }
+
+
+    private byte[] getCompressedBytes(byte[] contentBytes, String contentEncoding, boolean isImmutable) throws IOException {
+        if (!isImmutable) {
+            return CompressUtils.compress(contentBytes, contentEncoding);
+        }
+
+        boolean isGzip = CompressUtils.GZIP.equals(contentEncoding);
+        byte[] compressedBytes = isGzip ? this.cachedGzipBytes : this.cachedDeflateBytes;
+        if (compressedBytes == null) {
+            compressedBytes = CompressUtils.compress(contentBytes, contentEncoding);
+            if (isGzip) {
+                this.cachedGzipBytes = compressedBytes;
+            } else {
+                this.cachedDeflateBytes = compressedBytes;
+            }
+        }
+        return compressedBytes;
+    }
+
+
+    /**
+     * 根据配置、Content-Type、内容长度和请求的Accept-Encoding选择压缩方式
+     *
+     * @param contentLength 小于0表示长度未知
+     * @return 不压缩返回null
+     */
+    protected String negotiateContentEncoding(HttpServletRequest request, long contentLength) {
+        if (!isCompressibleContentType()) {
+            return null;
+        }
+
+        if (contentLength >= 0 && contentLength < FrameworkConfig.getInstance().getResponseCompressMinSize()) {
+            return null;
+        }
+
+        return CompressUtils.negotiateEncoding(request.getHeader("Accept-Encoding"));
+    }
+
+
+    private boolean isCompressibleContentType() {
+        FrameworkConfig frameworkConfig = FrameworkConfig.getInstance();
+        return frameworkConfig.isResponseCompress() && frameworkConfig.getResponseCompressContentTypes().contains(getContentType());
+    }
+
+
+    protected void writeHeaders(HttpServletRequest request, HttpServletResponse response, long contentLength) {
+        writeHeaders(request, response, contentLength, null);
+    }
+
+
+    /**
+     * 设置状态和头信息
+     *
+     * @param contentLength   小于0时不设置Content-Length，由Jetty使用chunked输出
+     * @param contentEncoding 压缩方式，不压缩为null
+     */
+    protected void writeHeaders(HttpServletRequest request, HttpServletResponse response, long contentLength, String contentEncoding) {
+
+        String cacheControl = getCacheControl();
+        if (cacheControl != null) {
+            response.setHeader("Cache-Control", cacheControl);
+        }
+
+        response.setContentType(ResponseHeaders.getContentTypeWithCharset(getContentType()));
+        if (contentLength >= 0) {
+            response.setContentLengthLong(contentLength);
+        }
+        ResponseHeaders.setHeader(response, ResponseHeaders.getServerField());
+        ResponseHeaders.setHeader(response, ResponseHeaders.getDateField());
+        ResponseUtils.setConnectionHeader(request, response);
+
+        //同一个地址可能返回压缩或不压缩的内容
+        if (isCompressibleContentType()) {
+            ResponseHeaders.addVaryAcceptEncoding(response);
+        }
+        if (contentEncoding != null) {
+            ResponseHeaders.setHeader(response, ResponseHeaders.toContentEncodingField(contentEncoding));
+        }
+
+        if ("POST".equalsIgnoreCase(request.getMethod())) {
+            ResponseHeaders.setHeader(response, ResponseHeaders.NO_CACHE_CONTROL);
+            ResponseHeaders.setHeader(response, ResponseHeaders.NO_CACHE_EXPIRES);
+            ResponseHeaders.setHeader(response, ResponseHeaders.NO_CACHE_PRAGMA);
+        }
+
+
+        response.setStatus(HttpServletResponse.SC_OK);
+    }
+
+
+    //返回null表示不设置Cache-Control，POST请求总是不缓存
+    public String getCacheControl() {
+        return null;
+    }
+
+
     public abstract byte[] getContentBytes();
 
     public abstract String getContentType();
@@ -0,0 +1,82 @@
+package cn.ubibi.jettyboot.framework.rest.route;
+
+import cn.ubibi.jettyboot.framework.rest.ControllerMethodHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * 一次路由匹配的结果：匹配到的方法以及路径中的参数。
+ * 参数只记录在请求路径中的位置，用到时才截取字符串。
+ */
+public class RouteMatch {
+
+    //放在request的attribute中，DefaultHttpParsedRequest直接使用，不再重复解析路径
+    public static final String REQUEST_ATTRIBUTE = RouteMatch.class.getName();
+
+    private final ControllerMethodHandler methodHandler;
+    private final String pathInfo;
+    private final String[] paramNames;
+
+    //第i个参数的位置：[offsets[i*2], offsets[i*2+1])
+    private final int[] offsets;
+    private String[] paramValues;
+
+
+    RouteMatch(ControllerMethodHandler methodHandler, String pathInfo, String[] paramNames, int[] offsets) {
+        this.methodHandler = methodHandler;
+        this.pathInfo = pathInfo;
+        this.paramNames = paramNames;
+        this.offsets = offsets;
+    }
+
+    public ControllerMethodHandler getMethodHandler() {
+        return methodHandler;
+    }
+
+    public String getTargetPath() {
+        return methodHandler.getTargetPath();
+    }
+
+
+    /**
+     * @param name 参数名
+     * @return 没有这个参数返回null
+     */
+    public String getPathVariable(String name) {
+        String[] paramNames = this.paramNames;
+        //同名的参数以后面的为准
+        for (int i = paramNames.length - 1; i >= 0; i--) {
+            if (paramNames[i].equals(name)) {
+                return getPathVariable(i);
+            }
+        }
+        return null;
+    }
+
+
+    private String getPathVariable(int index) {
+        String[] paramValues = this.paramValues;
+        if (paramValues == null) {
+            paramValues = new String[paramNames.length];
+            this.paramValues = paramValues;
+        }
+
+        String value = paramValues[index];
+        if (value == null) {
+            value = pathInfo.substring(offsets[index * 2], offsets[index * 2 + 1]);
+            paramValues[index] = value;
+        }
+        return value;
+    }
+
+
+    public Map<String, String> getPathVariables() {
+        Map<String, String> pathVariables = new HashMap<>();
+        for (int i = 0; i < paramNames.length; i++) {
+            pathVariables.put(paramNames[i], getPathVariable(i));
+        }
+        return pathVariables;
+    }
+}
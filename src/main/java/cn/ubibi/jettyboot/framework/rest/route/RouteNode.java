@@ -0,0 +1,100 @@
+package cn.ubibi.jettyboot.framework.rest.route;
+
+import cn.ubibi.jettyboot.framework.rest.ControllerMethodHandler;
+
+
+/**
+ * 路由树的一个节点，每个节点对应路径中的一段。
+ * 子节点采用写时复制的数组，启动后只读，匹配时不需要加锁。
+ */
+class RouteNode {
+
+    //静态子节点
+    private volatile String[] staticSegments = new String[0];
+    private volatile int[] staticHashes = new int[0];
+    private volatile RouteNode[] staticChildren = new RouteNode[0];
+
+    //参数子节点 :id 或 {id}
+    private volatile RouteNode paramChild;
+
+    //路由终点
+    private volatile ControllerMethodHandler methodHandler;
+    private volatile String[] paramNames;
+
+
+    synchronized RouteNode getOrCreateStaticChild(String segment) {
+        RouteNode child = findStaticChild(segment, 0, segment.length(), segment.hashCode());
+        if (child != null) {
+            return child;
+        }
+
+        int size = staticChildren.length;
+        String[] segments2 = new String[size + 1];
+        int[] hashes2 = new int[size + 1];
+        RouteNode[] children2 = new RouteNode[size + 1];
+        System.arraycopy(staticSegments, 0, segments2, 0, size);
+        System.arraycopy(staticHashes, 0, hashes2, 0, size);
+        System.arraycopy(staticChildren, 0, children2, 0, size);
+
+        child = new RouteNode();
+        segments2[size] = segment;
+        hashes2[size] = segment.hashCode();
+        children2[size] = child;
+
+        this.staticSegments = segments2;
+        this.staticHashes = hashes2;
+        this.staticChildren = children2;
+        return child;
+    }
+
+
+    synchronized RouteNode getOrCreateParamChild() {
+        if (paramChild == null) {
+            paramChild = new RouteNode();
+        }
+        return paramChild;
+    }
+
+
+    /**
+     * 在path的[start,end)区间查找静态子节点，不会创建子字符串
+     */
+    RouteNode findStaticChild(String path, int start, int end, int hash) {
+        RouteNode[] children = this.staticChildren;
+        String[] segments = this.staticSegments;
+        int[] hashes = this.staticHashes;
+        int len = end - start;
+        for (int i = 0; i < children.length; i++) {
+            if (hashes[i] == hash) {
+                String segment = segments[i];
+                if (segment.length() == len && path.regionMatches(start, segment, 0, len)) {
+                    return children[i];
+                }
+            }
+        }
+        return null;
+    }
+
+
+    RouteNode getParamChild() {
+        return paramChild;
+    }
+
+    ControllerMethodHandler getMethodHandler() {
+        return methodHandler;
+    }
+
+    String[] getParamNames() {
+        return paramNames;
+    }
+
+    //重复的路由以先注册的为准
+    synchronized boolean setMethodHandler(ControllerMethodHandler methodHandler, String[] paramNames) {
+        if (this.methodHandler != null) {
+            return false;
+        }
+        this.paramNames = paramNames;
+        this.methodHandler = methodHandler;
+        return true;
+    }
+}
@@ -0,0 +1,140 @@
+package cn.ubibi.jettyboot.framework.rest.route;
+
+import cn.ubibi.jettyboot.framework.rest.ControllerMethodHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * 路由表，每个HTTP方法一棵前缀树，启动时构建。
+ * 一次匹配只需要把请求路径从头到尾走一遍，同时取出路径参数。
+ * <p>
+ * 静态路径优先于参数路径: /user/abc 优先于 /user/:id
+ */
+public class RouteTable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RouteTable.class);
+
+    private final Map<String, RouteNode> methodRootMap = new ConcurrentHashMap<>();
+
+    //所有路由中最多的参数个数
+    private volatile int maxParamCount = 0;
+
+
+    public synchronized void addRoute(ControllerMethodHandler methodHandler) {
+
+        String httpMethod = toHttpMethod(methodHandler.getSupportRequestMethod());
+
+        RouteNode node = methodRootMap.get(httpMethod);
+        if (node == null) {
+            node = new RouteNode();
+            methodRootMap.put(httpMethod, node);
+        }
+
+        RouteTemplate routeTemplate = methodHandler.getRouteTemplate();
+        int segmentCount = routeTemplate.getSegmentCount();
+        String[] paramNames = new String[routeTemplate.getParamCount()];
+        int paramIndex = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            String paramName = routeTemplate.getParamName(i);
+            if (paramName != null) {
+                paramNames[paramIndex++] = paramName;
+                node = node.getOrCreateParamChild();
+            } else {
+                node = node.getOrCreateStaticChild(routeTemplate.getSegment(i));
+            }
+        }
+
+        boolean isAdded = node.setMethodHandler(methodHandler, paramNames);
+        if (!isAdded) {
+            LOGGER.warn("duplicate route ignored : " + httpMethod + " " + methodHandler.getTargetPath());
+            return;
+        }
+
+        if (paramNames.length > maxParamCount) {
+            maxParamCount = paramNames.length;
+        }
+    }
+
+
+    /**
+     * @param requestMethod   HTTP方法，如 GET
+     * @param requestPathInfo 请求路径
+     * @return 没有匹配到返回null
+     */
+    public RouteMatch match(String requestMethod, String requestPathInfo) {
+        if (requestMethod == null || requestPathInfo == null) {
+            return null;
+        }
+
+        RouteNode root = methodRootMap.get(requestMethod);
+        if (root == null) {
+            root = methodRootMap.get(requestMethod.toUpperCase());
+            if (root == null) {
+                return null;
+            }
+        }
+
+        //每个参数占两个位置: 开始和结束
+        int[] offsets = new int[maxParamCount * 2];
+        RouteNode matched = matchNode(root, requestPathInfo, 0, 0, offsets);
+        if (matched == null) {
+            return null;
+        }
+
+        return new RouteMatch(matched.getMethodHandler(), requestPathInfo, matched.getParamNames(), offsets);
+    }
+
+
+    private static RouteNode matchNode(RouteNode node, String path, int from, int paramIndex, int[] offsets) {
+
+        int length = path.length();
+
+        //跳过分隔符，连续的/与空段等价
+        int start = from;
+        while (start < length && path.charAt(start) == '/') {
+            start++;
+        }
+
+        if (start >= length) {
+            return node.getMethodHandler() != null ? node : null;
+        }
+
+        int end = start;
+        int hash = 0;
+        char c;
+        while (end < length && (c = path.charAt(end)) != '/') {
+            hash = 31 * hash + c;
+            end++;
+        }
+
+        RouteNode staticChild = node.findStaticChild(path, start, end, hash);
+        if (staticChild != null) {
+            RouteNode result = matchNode(staticChild, path, end, paramIndex, offsets);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        RouteNode paramChild = node.getParamChild();
+        if (paramChild != null && paramIndex * 2 < offsets.length) {
+            offsets[paramIndex * 2] = start;
+            offsets[paramIndex * 2 + 1] = end;
+            return matchNode(paramChild, path, end, paramIndex + 1, offsets);
+        }
+
+        return null;
+    }
+
+
+    //RPC使用的是POST请求
+    private static String toHttpMethod(String supportRequestMethod) {
+        if (supportRequestMethod.startsWith("rpc_")) {
+            return "POST";
+        }
+        return supportRequestMethod.toUpperCase();
+    }
+}
@@ -0,0 +1,179 @@
+package cn.ubibi.jettyboot.framework.rest.route;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * 预先编译好的路由模板，例如 /user/:id 或 /user/{name}/3232
+ * 匹配时只把请求路径从头到尾扫描一遍，不需要split，也不创建子字符串。
+ * 对象创建后不可变，可以在多个线程中共享。
+ */
+public class RouteTemplate {
+
+    private final String targetPath;
+
+    //非空的段
+    private final String[] segments;
+
+    //每一段的hash，与String.hashCode一致
+    private final int[] segmentHashes;
+
+    //参数名，不是参数的段为null
+    private final String[] paramNames;
+    private final int paramCount;
+
+
+    public RouteTemplate(String targetPath) {
+        this.targetPath = targetPath;
+
+        List<String> segmentList = new ArrayList<>();
+        int length = targetPath.length();
+        int start = 0;
+        while (start < length) {
+            int end = targetPath.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                segmentList.add(targetPath.substring(start, end));
+            }
+            start = end + 1;
+        }
+
+        int size = segmentList.size();
+        this.segments = segmentList.toArray(new String[size]);
+        this.segmentHashes = new int[size];
+        this.paramNames = new String[size];
+
+        int paramCount = 0;
+        for (int i = 0; i < size; i++) {
+            segmentHashes[i] = segments[i].hashCode();
+            paramNames[i] = toParamName(segments[i]);
+            if (paramNames[i] != null) {
+                paramCount++;
+            }
+        }
+        this.paramCount = paramCount;
+    }
+
+
+    public String getTargetPath() {
+        return targetPath;
+    }
+
+    int getSegmentCount() {
+        return segments.length;
+    }
+
+    String getSegment(int index) {
+        return segments[index];
+    }
+
+    //不是参数返回null
+    String getParamName(int index) {
+        return paramNames[index];
+    }
+
+    int getParamCount() {
+        return paramCount;
+    }
+
+
+    public boolean isMatch(String requestPathInfo) {
+        if (targetPath.equals(requestPathInfo)) {
+            return true;
+        }
+        return scan(requestPathInfo, null);
+    }
+
+
+    /**
+     * 按位置取出请求路径中的参数，不再比较静态的段，
+     * 因为请求可能是由自定义的HttpPathComparator匹配的
+     */
+    public Map<String, String> getPathVariables(String requestPathInfo) {
+        Map<String, String> pathVariables = new HashMap<>();
+        scan(requestPathInfo, pathVariables);
+        return pathVariables;
+    }
+
+
+    /**
+     * 逐段比较，连续的/与空段等价
+     *
+     * @param pathVariables 不为null时只按位置取参数
+     */
+    private boolean scan(String path, Map<String, String> pathVariables) {
+
+        int length = path.length();
+        int start = 0;
+
+        for (int i = 0; i < segments.length; i++) {
+
+            while (start < length && path.charAt(start) == '/') {
+                start++;
+            }
+            if (start >= length) {
+                return false;
+            }
+
+            int end = start;
+            int hash = 0;
+            char c;
+            while (end < length && (c = path.charAt(end)) != '/') {
+                hash = 31 * hash + c;
+                end++;
+            }
+
+            String paramName = paramNames[i];
+            if (pathVariables != null) {
+                if (paramName != null) {
+                    pathVariables.put(paramName, path.substring(start, end));
+                }
+            } else if (paramName == null) {
+                String segment = segments[i];
+                int len = end - start;
+                if (segmentHashes[i] != hash || segment.length() != len || !path.regionMatches(start, segment, 0, len)) {
+                    return false;
+                }
+            }
+
+            start = end;
+        }
+
+        //请求路径不能还有剩余的段
+        while (start < length) {
+            if (path.charAt(start) != '/') {
+                return false;
+            }
+            start++;
+        }
+        return true;
+    }
+
+
+    /**
+     * 支持两种形式的参数
+     *
+     * @return 不是参数返回null
+     * @see cn.ubibi.jettyboot.framework.rest.impl.DefaultHttpPathComparator
+     */
+    private static String toParamName(String segment) {
+        if (segment.startsWith(":")) {
+            return segment.replace(':', ' ').trim();
+        }
+        if (segment.startsWith("{") && segment.endsWith("}")) {
+            return segment.replace('{', ' ').replace('}', ' ').trim();
+        }
+        return null;
+    }
+
+
+    @Override
+    public String toString() {
+        return targetPath;
+    }
+}
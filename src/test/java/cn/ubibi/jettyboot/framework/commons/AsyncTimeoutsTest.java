@@ -0,0 +1,153 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AsyncTimeoutsTest {
+
+    private static final long TIMEOUT = 400;
+    private static final long RESTART_DELAY = 300;
+
+
+    //不是Jetty的请求时使用asyncContext.setTimeout
+    @Test
+    public void testFallbackForNonJettyRequest() {
+        AtomicLong timeout = new AtomicLong();
+        ServletRequest request = (ServletRequest) newProxy(ServletRequest.class, null);
+        Assert.assertFalse(AsyncTimeouts.restart(request, newAsyncContext(timeout), TIMEOUT));
+        Assert.assertEquals(TIMEOUT, timeout.get());
+    }
+
+
+    //Jetty内部状态不可用时不抛出异常，同样使用asyncContext.setTimeout
+    @Test
+    public void testFallbackForBrokenJettyRequest() {
+        AtomicLong timeout = new AtomicLong();
+        Assert.assertFalse(AsyncTimeouts.restart(new Request(null, null), newAsyncContext(timeout), TIMEOUT));
+        Assert.assertEquals(TIMEOUT, timeout.get());
+    }
+
+
+    //已经在计时的请求重新计时后，超时时间从重新计时的时刻开始算
+    @Test
+    public void testRestartRunningTimer() throws Exception {
+        final AtomicBoolean restarted = new AtomicBoolean();
+        final AtomicLong timeoutCost = new AtomicLong();
+        final CountDownLatch timeoutLatch = new CountDownLatch(1);
+
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        connector.setHost("127.0.0.1");
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) {
+                baseRequest.setHandled(true);
+                final long start = System.currentTimeMillis();
+                final AsyncContext asyncContext = request.startAsync();
+                asyncContext.setTimeout(TIMEOUT);
+                asyncContext.addListener(new AsyncListener() {
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        timeoutCost.set(System.currentTimeMillis() - start);
+                        timeoutLatch.countDown();
+                        event.getAsyncContext().complete();
+                    }
+
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+
+                //dispatch返回后计时器才启动，之后再重新计时
+                final ServletRequest asyncRequest = asyncContext.getRequest();
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            Thread.sleep(RESTART_DELAY);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        restarted.set(AsyncTimeouts.restart(asyncRequest, asyncContext, TIMEOUT));
+                    }
+                }).start();
+            }
+        });
+        server.start();
+
+        Socket socket = new Socket("127.0.0.1", connector.getLocalPort());
+        try {
+            socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            socket.getOutputStream().flush();
+
+            Assert.assertTrue(timeoutLatch.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(restarted.get());
+            Assert.assertTrue("timeout after " + timeoutCost.get() + " ms", timeoutCost.get() >= RESTART_DELAY + TIMEOUT);
+
+            InputStream in = socket.getInputStream();
+            while (in.read() >= 0) {
+                //读到连接关闭
+            }
+        } finally {
+            socket.close();
+            server.stop();
+        }
+    }
+
+
+    private static AsyncContext newAsyncContext(final AtomicLong timeout) {
+        return (AsyncContext) newProxy(AsyncContext.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("setTimeout".equals(method.getName())) {
+                    timeout.set((Long) args[0]);
+                }
+                return null;
+            }
+        });
+    }
+
+
+    //handler为null时所有方法都返回null
+    private static Object newProxy(Class<?> clazz, InvocationHandler handler) {
+        if (handler == null) {
+            handler = new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    return null;
+                }
+            };
+        }
+        return Proxy.newProxyInstance(AsyncTimeoutsTest.class.getClassLoader(), new Class[]{clazz}, handler);
+    }
+}
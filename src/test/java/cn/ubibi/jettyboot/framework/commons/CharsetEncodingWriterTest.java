@@ -0,0 +1,47 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+public class CharsetEncodingWriterTest {
+
+    @Test
+    public void testSameAsGetBytes() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("abc中文😀").append(i);
+        }
+        String text = sb.toString();
+
+        for (String charsetName : new String[]{"UTF-8", "GBK", "ISO-8859-1"}) {
+            Charset charset = Charset.forName(charsetName);
+            Assert.assertArrayEquals(charsetName, text.getBytes(charset), encode(text, charset, text.length()));
+        }
+    }
+
+
+    //代理对被拆到两次写入中
+    @Test
+    public void testSplitSurrogatePair() throws Exception {
+        String text = "a😀b😁";
+        Charset charset = Charset.forName("UTF-8");
+        for (int chunk = 1; chunk <= text.length(); chunk++) {
+            Assert.assertArrayEquals(text.getBytes(charset), encode(text, charset, chunk));
+        }
+    }
+
+
+    private static byte[] encode(String text, Charset charset, int chunk) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CharsetEncodingWriter writer = new CharsetEncodingWriter(out, charset);
+        char[] chars = text.toCharArray();
+        for (int off = 0; off < chars.length; off = off + chunk) {
+            writer.write(chars, off, Math.min(chunk, chars.length - off));
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+}
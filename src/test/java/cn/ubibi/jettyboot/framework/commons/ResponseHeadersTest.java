@@ -0,0 +1,57 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ResponseHeadersTest {
+
+    @Test
+    public void testAddVaryAcceptEncoding() {
+        Assert.assertEquals(Arrays.asList("Accept-Encoding"), varyAfterAdd());
+        Assert.assertEquals(Arrays.asList("Origin, Accept-Encoding"), varyAfterAdd("Origin"));
+        Assert.assertEquals(Arrays.asList("Origin, Cookie, Accept-Encoding"), varyAfterAdd("Origin", "Cookie"));
+        Assert.assertEquals(Arrays.asList("Origin, accept-encoding"), varyAfterAdd("Origin, accept-encoding"));
+        Assert.assertEquals(Arrays.asList("*"), varyAfterAdd("*"));
+    }
+
+
+    private static List<String> varyAfterAdd(String... varyValues) {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (varyValues.length > 0) {
+            headers.put("Vary", new ArrayList<>(Arrays.asList(varyValues)));
+        }
+        ResponseHeaders.addVaryAcceptEncoding(newResponse(headers));
+        return headers.get("Vary");
+    }
+
+
+    //只支持读写头信息
+    private static HttpServletResponse newResponse(final Map<String, List<String>> headers) {
+        return (HttpServletResponse) Proxy.newProxyInstance(ResponseHeadersTest.class.getClassLoader(), new Class[]{HttpServletResponse.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("getHeaders".equals(name)) {
+                    List<String> values = headers.get((String) args[0]);
+                    return values == null ? Collections.<String>emptyList() : values;
+                }
+                if ("setHeader".equals(name)) {
+                    headers.put((String) args[0], new ArrayList<>(Collections.singletonList((String) args[1])));
+                    return null;
+                }
+                throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+}
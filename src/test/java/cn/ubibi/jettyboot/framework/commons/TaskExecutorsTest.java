@@ -0,0 +1,68 @@
+package cn.ubibi.jettyboot.framework.commons;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class TaskExecutorsTest {
+
+    private static final int TASK_COUNT = 200;
+    private static final long BLOCKING_MILLIS = 50;
+    private static final int CORE_SIZE = 10;
+    private static final int MAX_SIZE = 200;
+
+
+    //每个任务阻塞50毫秒(模拟阻塞I/O)，比较三种线程池执行200个任务的时间
+    @Test
+    public void testBlockingTaskThroughput() throws Exception {
+        long fixedQueueMillis = runBlockingTasks(ExecutorTypeEnum.FIXED_QUEUE);
+        long handoffPoolMillis = runBlockingTasks(ExecutorTypeEnum.HANDOFF_POOL);
+        long virtualThreadMillis = runBlockingTasks(ExecutorTypeEnum.VIRTUAL_THREAD);
+
+        System.out.println("blocking tasks ms : FIXED_QUEUE " + fixedQueueMillis + " , HANDOFF_POOL " + handoffPoolMillis
+                + " , VIRTUAL_THREAD " + virtualThreadMillis + (VirtualThreads.isSupported() ? "" : " (fallback to HANDOFF_POOL)"));
+
+        //FIXED_QUEUE只有核心线程在工作，至少需要 200/10 轮
+        Assert.assertTrue(fixedQueueMillis >= TASK_COUNT / CORE_SIZE * BLOCKING_MILLIS);
+        Assert.assertTrue(handoffPoolMillis * 2 < fixedQueueMillis);
+        Assert.assertTrue(virtualThreadMillis * 2 < fixedQueueMillis);
+    }
+
+
+    private static long runBlockingTasks(ExecutorTypeEnum executorType) throws Exception {
+        Executor executor = TaskExecutors.createExecutor(executorType, CORE_SIZE, MAX_SIZE);
+        final CountDownLatch latch = new CountDownLatch(TASK_COUNT);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(BLOCKING_MILLIS);
+                } catch (InterruptedException e) {
+                    //ignore
+                }
+                latch.countDown();
+            }
+        };
+
+        long start = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < TASK_COUNT; i++) {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    //与CALLER_RUNS相同
+                    task.run();
+                }
+            }
+            Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+            return System.currentTimeMillis() - start;
+        } finally {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+}
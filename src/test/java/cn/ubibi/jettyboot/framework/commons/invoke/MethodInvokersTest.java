@@ -0,0 +1,65 @@
+package cn.ubibi.jettyboot.framework.commons.invoke;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+public class MethodInvokersTest {
+
+    public static class Calculator {
+
+        public long add(int a, long b) {
+            return a + b;
+        }
+
+        public String upper(String s) {
+            return s.toUpperCase();
+        }
+    }
+
+
+    //三种调用方式对调用方的错误和被调用方法的异常与Method.invoke一致
+    @Test
+    public void testSameErrorsAsReflection() throws Exception {
+        Method add = Calculator.class.getMethod("add", int.class, long.class);
+        Method upper = Calculator.class.getMethod("upper", String.class);
+        Calculator calculator = new Calculator();
+
+        for (MethodInvokerTypeEnum invokerType : MethodInvokerTypeEnum.values()) {
+            MethodInvoker addInvoker = MethodInvokers.createMethodInvoker(add, invokerType);
+            MethodInvoker upperInvoker = MethodInvokers.createMethodInvoker(upper, invokerType);
+
+            Assert.assertEquals(3L, addInvoker.invoke(calculator, new Object[]{1, 2L}));
+            Assert.assertEquals("AB", upperInvoker.invoke(calculator, new Object[]{"ab"}));
+
+            //基本类型拓宽与反射一样可以调用
+            Assert.assertEquals(3L, addInvoker.invoke(calculator, new Object[]{1, 2}));
+
+            assertIllegalArgument(addInvoker, calculator, new Object[]{null, 2L});
+            assertIllegalArgument(addInvoker, calculator, new Object[]{"1", 2L});
+            assertIllegalArgument(addInvoker, calculator, new Object[]{1});
+            assertIllegalArgument(upperInvoker, calculator, new Object[]{1});
+            assertIllegalArgument(upperInvoker, "not a calculator", new Object[]{"ab"});
+
+            //被调用方法自己抛出的异常
+            try {
+                upperInvoker.invoke(calculator, new Object[]{null});
+                Assert.fail(invokerType.toString());
+            } catch (InvocationTargetException e) {
+                Assert.assertTrue(e.getCause() instanceof NullPointerException);
+            }
+        }
+    }
+
+
+    private static void assertIllegalArgument(MethodInvoker methodInvoker, Object target, Object[] params) throws Exception {
+        try {
+            methodInvoker.invoke(target, params);
+            Assert.fail(methodInvoker.getClass().getSimpleName());
+        } catch (IllegalArgumentException e) {
+            //与Method.invoke相同
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package cn.ubibi.jettyboot.framework.ioc;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServiceManagerTest {
+
+    public static class LateService {
+    }
+
+    public static class SingletonHolder {
+        @Autowired
+        private LateService lateService;
+    }
+
+
+    public static class FillerService implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+
+    public static class FirstService {
+    }
+
+    public static class LastService {
+    }
+
+    public static class FirstController {
+        @Autowired
+        private FirstService service;
+    }
+
+    public static class LastController {
+        @Autowired
+        private LastService service;
+    }
+
+
+    //注入的耗时不随Service的个数增长: 原来按注册顺序逐个isInstance查找，排在后面的Service越多越慢
+    @Test
+    public void testInjectionCostFlatAsServicesGrow() throws Exception {
+        ServiceManager serviceManager = ServiceManager.getInstance();
+        FirstService firstService = new FirstService();
+        serviceManager.addService(firstService);
+        long fewServicesNanos = measureInjectNanos(serviceManager, firstService, FirstController.class);
+
+        //再注册5000个Service(每个都带一个接口代理)，最后注册要注入的Service
+        for (int i = 0; i < 5000; i++) {
+            serviceManager.addService(new FillerService());
+        }
+        LastService lastService = new LastService();
+        serviceManager.addService(lastService);
+        long manyServicesNanos = measureInjectNanos(serviceManager, lastService, LastController.class);
+
+        System.out.println("inject ns/op : services=few " + fewServicesNanos + " , services=5000+ " + manyServicesNanos);
+        Assert.assertTrue(manyServicesNanos < fewServicesNanos * 3 + 100);
+    }
+
+
+    //每次注入一个新的Controller和一个已经注入过的Service，取5轮中最快的一轮
+    private static long measureInjectNanos(ServiceManager serviceManager, Object service, Class<?> controllerClazz) throws Exception {
+        int count = 100000;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                serviceManager.injectDependency(controllerClazz.newInstance());
+                serviceManager.injectDependency(service);
+            }
+            best = Math.min(best, (System.nanoTime() - start) / count);
+        }
+        return best;
+    }
+
+
+    //启动后才注册的Service会注入到已经创建的单例中
+    @Test
+    public void testLateServiceInjectedIntoSingleton() throws Exception {
+        SingletonHolder holder = new SingletonHolder();
+        try {
+            ServiceManager.getInstance().injectSingleton(holder);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertTrue(e.getMessage().startsWith("ServiceNotFound"));
+        }
+        Assert.assertNull(holder.lateService);
+
+        LateService lateService = new LateService();
+        ServiceManager.getInstance().addService(lateService);
+        Assert.assertSame(lateService, holder.lateService);
+    }
+}
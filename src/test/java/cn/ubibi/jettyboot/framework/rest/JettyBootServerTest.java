@@ -0,0 +1,320 @@
+package cn.ubibi.jettyboot.framework.rest;
+
+import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
+import cn.ubibi.jettyboot.framework.rest.annotation.GetMapping;
+import cn.ubibi.jettyboot.framework.rest.impl.ResponseBytesRender;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.HandlerCollection;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class JettyBootServerTest {
+
+    private static final int THREAD_COUNT = 4;
+    private static final int REQUESTS_PER_THREAD = 500;
+
+    private static final int SLOW_CLIENT_COUNT = 8;
+    private static final int BIG_CONTENT_LENGTH = 8 * 1024 * 1024;
+
+    public static class PingController {
+        @GetMapping("/ping")
+        public Object ping() {
+            return "pong";
+        }
+    }
+
+    public static class BigController {
+        private final ResponseBytesRender bigRender = new ResponseBytesRender(new byte[BIG_CONTENT_LENGTH], "application/octet-stream", null);
+
+        @GetMapping("/big")
+        public Object big() {
+            return bigRender;
+        }
+    }
+
+
+    //使用传入的地址字符串，不做反向DNS解析
+    @Test
+    public void testBindAddressWithoutReverseLookup() {
+        JettyBootServer server = new JettyBootServer(new InetSocketAddress("127.0.0.1", 0));
+        Assert.assertEquals("127.0.0.1", ((ServerConnector) server.getConnectors()[0]).getHost());
+    }
+
+
+    //同样的请求分别使用长连接和每次新建连接，输出每秒请求数
+    @Test
+    public void testKeepAliveLoad() throws Exception {
+        JettyBootServer server = new JettyBootServer(new InetSocketAddress("127.0.0.1", 0));
+        ControllerContextHandler context = new ControllerContextHandler("/");
+        context.addController("/ka", new PingController());
+        server.addContextHandler(context);
+        server.setHandler(new HandlerCollection(context));
+        server.start();
+
+        FrameworkConfig frameworkConfig = FrameworkConfig.getInstance();
+        try {
+            int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+
+            //预热
+            runLoad(port);
+
+            frameworkConfig.setKeepAlive(true);
+            LoadResult keepAlive = runLoad(port);
+
+            frameworkConfig.setKeepAlive(false);
+            LoadResult close = runLoad(port);
+
+            System.out.println("keep-alive : " + keepAlive + " , connection close : " + close);
+
+            int requestCount = THREAD_COUNT * REQUESTS_PER_THREAD;
+            Assert.assertEquals(requestCount, keepAlive.okCount);
+            Assert.assertEquals(requestCount, close.okCount);
+            Assert.assertEquals(THREAD_COUNT, keepAlive.connectionCount);
+            Assert.assertEquals(requestCount, close.connectionCount);
+        } finally {
+            frameworkConfig.setKeepAlive(true);
+            server.stop();
+        }
+    }
+
+
+    //多个客户端请求大的响应后暂时不读取，比较同步写出和异步写出时被占用的工作线程数
+    @Test
+    public void testSlowClientThreadOccupancy() throws Exception {
+        JettyBootServer server = new JettyBootServer(new InetSocketAddress("127.0.0.1", 0));
+        ControllerContextHandler context = new ControllerContextHandler("/");
+        context.addController("/slow", new BigController());
+        server.addContextHandler(context);
+        server.setHandler(new HandlerCollection(context));
+        server.start();
+
+        FrameworkConfig frameworkConfig = FrameworkConfig.getInstance();
+        int asyncWriteThreshold = frameworkConfig.getAsyncWriteThreshold();
+        try {
+            int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+            QueuedThreadPool threadPool = (QueuedThreadPool) server.getThreadPool();
+
+            frameworkConfig.setAsyncWriteThreshold(-1);
+            SlowClientResult blocking = runSlowClients(port, threadPool);
+
+            frameworkConfig.setAsyncWriteThreshold(asyncWriteThreshold);
+            SlowClientResult async = runSlowClients(port, threadPool);
+
+            System.out.println("slow clients blocking write : " + blocking + " , async write : " + async);
+
+            Assert.assertEquals(SLOW_CLIENT_COUNT, blocking.completeCount);
+            Assert.assertEquals(SLOW_CLIENT_COUNT, async.completeCount);
+            Assert.assertTrue(blocking.toString(), blocking.busyThreads >= SLOW_CLIENT_COUNT);
+            Assert.assertTrue(async.toString(), async.busyThreads < SLOW_CLIENT_COUNT);
+        } finally {
+            frameworkConfig.setAsyncWriteThreshold(asyncWriteThreshold);
+            server.stop();
+        }
+    }
+
+
+    private static SlowClientResult runSlowClients(final int port, QueuedThreadPool threadPool) throws Exception {
+        //Acceptor和Selector也算在busy中，只统计增加的部分
+        int idleBusyThreads = threadPool.getBusyThreads();
+
+        final AtomicInteger completeCount = new AtomicInteger();
+        final AtomicLong totalCostMillis = new AtomicLong();
+        final CountDownLatch sentLatch = new CountDownLatch(SLOW_CLIENT_COUNT);
+        final CountDownLatch readLatch = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < SLOW_CLIENT_COUNT; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Socket socket = new Socket();
+                    try {
+                        //接收缓冲区很小，不读取时服务端很快就写不出去
+                        socket.setReceiveBufferSize(4096);
+                        socket.connect(new InetSocketAddress("127.0.0.1", port));
+                        long start = System.currentTimeMillis();
+                        OutputStream out = socket.getOutputStream();
+                        out.write("GET /slow/big HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                        out.flush();
+                        sentLatch.countDown();
+                        readLatch.await();
+
+                        InputStream in = socket.getInputStream();
+                        byte[] buffer = new byte[64 * 1024];
+                        long total = 0;
+                        int read;
+                        while ((read = in.read(buffer)) >= 0) {
+                            total = total + read;
+                        }
+                        if (total > BIG_CONTENT_LENGTH) {
+                            completeCount.incrementAndGet();
+                        }
+                        totalCostMillis.addAndGet(System.currentTimeMillis() - start);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    } finally {
+                        closeQuietly(socket);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        sentLatch.await();
+        //等服务端写满缓冲区后停住
+        Thread.sleep(1000);
+        int busyThreads = threadPool.getBusyThreads() - idleBusyThreads;
+        readLatch.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new SlowClientResult(completeCount.get(), busyThreads, totalCostMillis.get() / SLOW_CLIENT_COUNT);
+    }
+
+
+    private static LoadResult runLoad(final int port) throws Exception {
+        final AtomicInteger okCount = new AtomicInteger();
+        final AtomicInteger connectionCount = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Socket socket = null;
+                    try {
+                        for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                            if (socket == null) {
+                                socket = new Socket("127.0.0.1", port);
+                                connectionCount.incrementAndGet();
+                            }
+                            String response = get(socket, "/ka/ping");
+                            if (response.startsWith("HTTP/1.1 200") && response.endsWith("pong")) {
+                                okCount.incrementAndGet();
+                            }
+                            if (response.toLowerCase().contains("connection: close")) {
+                                socket.close();
+                                socket = null;
+                            }
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    } finally {
+                        closeQuietly(socket);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long costNanos = System.nanoTime() - start;
+        return new LoadResult(okCount.get(), connectionCount.get(), okCount.get() * 1000000000L / Math.max(1, costNanos));
+    }
+
+
+    //只处理有Content-Length的响应
+    private static String get(Socket socket, String path) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(("GET " + path + " HTTP/1.1\r\nHost: 127.0.0.1\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+
+        InputStream in = socket.getInputStream();
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("connection closed");
+            }
+            head.write(b);
+            matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+
+        String headText = new String(head.toByteArray(), StandardCharsets.ISO_8859_1);
+        int contentLength = 0;
+        for (String line : headText.split("\r\n")) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+            }
+        }
+
+        byte[] body = new byte[contentLength];
+        int size = 0;
+        while (size < contentLength) {
+            int read = in.read(body, size, contentLength - size);
+            if (read < 0) {
+                throw new IOException("connection closed");
+            }
+            size = size + read;
+        }
+        return headText + new String(body, StandardCharsets.UTF_8);
+    }
+
+
+    private static void closeQuietly(Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //ignore
+            }
+        }
+    }
+
+
+    private static class LoadResult {
+        private final int okCount;
+        private final int connectionCount;
+        private final long requestsPerSecond;
+
+        LoadResult(int okCount, int connectionCount, long requestsPerSecond) {
+            this.okCount = okCount;
+            this.connectionCount = connectionCount;
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return requestsPerSecond + " req/s (" + okCount + " ok, " + connectionCount + " connections)";
+        }
+    }
+
+
+    private static class SlowClientResult {
+        private final int completeCount;
+        private final int busyThreads;
+        private final long averageCostMillis;
+
+        SlowClientResult(int completeCount, int busyThreads, long averageCostMillis) {
+            this.completeCount = completeCount;
+            this.busyThreads = busyThreads;
+            this.averageCostMillis = averageCostMillis;
+        }
+
+        @Override
+        public String toString() {
+            return busyThreads + " busy threads (" + completeCount + " complete, " + averageCostMillis + " ms avg)";
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package cn.ubibi.jettyboot.framework.rest.bind;
+
+import com.alibaba.fastjson.JSON;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.ServletRequest;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+public class ParamsBindingPlanTest {
+
+    public static class PageParams {
+        private int pageSize;
+        private Integer pageNo;
+        private String name;
+        private int[] ids;
+        private List<Integer> tags;
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public Integer getPageNo() {
+            return pageNo;
+        }
+
+        public void setPageNo(Integer pageNo) {
+            this.pageNo = pageNo;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int[] getIds() {
+            return ids;
+        }
+
+        public void setIds(int[] ids) {
+            this.ids = ids;
+        }
+
+        public List<Integer> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<Integer> tags) {
+            this.tags = tags;
+        }
+    }
+
+
+    @Test
+    public void testBind() throws Exception {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("pageSize", new String[]{"15"});
+        params.put("pageNo", new String[]{"2"});
+        params.put("name", new String[]{"abc"});
+        params.put("ids", new String[]{"1", "2"});
+        params.put("tags", new String[]{"3"});
+
+        PageParams pageParams = (PageParams) ParamsBindingPlan.getInstance(PageParams.class).bind(toRequest(params));
+        Assert.assertEquals(15, pageParams.getPageSize());
+        Assert.assertEquals(Integer.valueOf(2), pageParams.getPageNo());
+        Assert.assertEquals("abc", pageParams.getName());
+        Assert.assertArrayEquals(new int[]{1, 2}, pageParams.getIds());
+        Assert.assertEquals(Arrays.asList(3), pageParams.getTags());
+    }
+
+
+    //?pageSize=&pageNo=&name= 这样的空参数不能抛出NumberFormatException
+    @Test
+    public void testBindEmptyParams() throws Exception {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("pageSize", new String[]{""});
+        params.put("pageNo", new String[]{""});
+        params.put("name", new String[]{""});
+        params.put("ids", new String[]{"1", ""});
+        params.put("tags", new String[]{"", "2"});
+
+        PageParams pageParams = (PageParams) ParamsBindingPlan.getInstance(PageParams.class).bind(toRequest(params));
+        Assert.assertEquals(0, pageParams.getPageSize());
+        Assert.assertNull(pageParams.getPageNo());
+        Assert.assertEquals("", pageParams.getName());
+        Assert.assertArrayEquals(new int[]{1, 0}, pageParams.getIds());
+        Assert.assertEquals(Arrays.asList(null, 2), pageParams.getTags());
+    }
+
+
+    //和原来先拼成JSON再解析的绑定方式比较，结果相同，输出每次绑定的耗时
+    @Test
+    public void testBindFasterThanJsonRoundTrip() throws Exception {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("pageSize", new String[]{"15"});
+        params.put("pageNo", new String[]{"2"});
+        params.put("name", new String[]{"abc"});
+        params.put("ids", new String[]{"1", "2", "3"});
+        params.put("tags", new String[]{"4", "5"});
+        final ServletRequest request = toRequest(params);
+        final ParamsBindingPlan plan = ParamsBindingPlan.getInstance(PageParams.class);
+
+        PageParams planResult = (PageParams) plan.bind(request);
+        PageParams jsonResult = bindByJsonRoundTrip(request, PageParams.class);
+        Assert.assertEquals(JSON.toJSONString(jsonResult), JSON.toJSONString(planResult));
+
+        long planNanos = measureNanos(new Callable() {
+            @Override
+            public Object call() throws Exception {
+                return plan.bind(request);
+            }
+        });
+        long jsonNanos = measureNanos(new Callable() {
+            @Override
+            public Object call() throws Exception {
+                return bindByJsonRoundTrip(request, PageParams.class);
+            }
+        });
+
+        System.out.println("bind ns/op : plan " + planNanos + " , json round trip " + jsonNanos);
+        Assert.assertTrue(planNanos < jsonNanos);
+    }
+
+
+    //原来DefaultHttpParsedRequest.getParameterValuesAsObject的实现
+    private static <T> T bindByJsonRoundTrip(ServletRequest request, Class<T> clazz) {
+        Map<String, Object> map = new HashMap<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            Class<?> fieldType = field.getType();
+            if (fieldType.isArray() || List.class.isAssignableFrom(fieldType)) {
+                map.put(field.getName(), request.getParameterValues(field.getName()));
+            } else {
+                map.put(field.getName(), request.getParameter(field.getName()));
+            }
+        }
+        return JSON.parseObject(JSON.toJSONString(map), clazz);
+    }
+
+
+    //取5轮中最快的一轮
+    private static long measureNanos(Callable callable) throws Exception {
+        int count = 100000;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                callable.call();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / count);
+        }
+        return best;
+    }
+
+
+    private static ServletRequest toRequest(final Map<String, String[]> params) {
+        return (ServletRequest) Proxy.newProxyInstance(ParamsBindingPlanTest.class.getClassLoader(), new Class[]{ServletRequest.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String[] values = params.get(args[0]);
+                if ("getParameterValues".equals(method.getName())) {
+                    return values;
+                }
+                if ("getParameter".equals(method.getName())) {
+                    return values == null ? null : values[0];
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,235 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncContextTaskManagerTest {
+
+    private static final int THREAD_COUNT = 64;
+
+    private final ConcurrentLinkedQueue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger completeCount = new AtomicInteger();
+
+
+    @After
+    public void tearDown() {
+        AsyncContextTaskManager.setExecutor(null);
+    }
+
+
+    @Test
+    public void testCloseKeepsAddOrder() {
+        AsyncContextTask task = new AsyncContextTask("order", null, null);
+        AsyncContext a = newAsyncContext();
+        AsyncContext b = newAsyncContext();
+        AsyncContext c = newAsyncContext();
+        task.addCallbackAsyncContext(a);
+        task.addCallbackAsyncContext(b);
+        task.addCallbackAsyncContext(c);
+
+        Assert.assertEquals(Arrays.asList(a, b, c), task.close());
+        Assert.assertFalse(task.addCallbackAsyncContext(newAsyncContext()));
+    }
+
+
+    //64个线程同时请求同一个key，只执行一次，所有请求都拿到结果
+    @Test
+    public void testSameKeyCoalesced() throws Exception {
+        AtomicInteger callCount = new AtomicInteger();
+        AtomicInteger callbackCount = new AtomicInteger();
+        addTasksConcurrently(1, callCount, callbackCount);
+
+        Assert.assertEquals(1, pendingTasks.size());
+        runPendingTasks();
+
+        Assert.assertEquals(1, callCount.get());
+        Assert.assertEquals(THREAD_COUNT, callbackCount.get());
+        Assert.assertEquals(THREAD_COUNT, completeCount.get());
+        Assert.assertEquals(0, AsyncContextTaskManager.getInFlightCount());
+    }
+
+
+    //不同的key分别执行，互不合并
+    @Test
+    public void testDifferentKeysNotCoalesced() throws Exception {
+        AtomicInteger callCount = new AtomicInteger();
+        AtomicInteger callbackCount = new AtomicInteger();
+        addTasksConcurrently(8, callCount, callbackCount);
+
+        Assert.assertEquals(8, pendingTasks.size());
+        runPendingTasks();
+
+        Assert.assertEquals(8, callCount.get());
+        Assert.assertEquals(THREAD_COUNT, callbackCount.get());
+        Assert.assertEquals(THREAD_COUNT, completeCount.get());
+        Assert.assertEquals(0, AsyncContextTaskManager.getInFlightCount());
+    }
+
+
+    //合并的请求中有的在结果返回前已经超时，其他请求仍然拿到结果并complete
+    @Test
+    public void testTimedOutWaiterNotBlockOthers() {
+        AsyncContextTaskManager.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                pendingTasks.add(command);
+            }
+        });
+
+        final AtomicInteger callCount = new AtomicInteger();
+        final List<ServletRequest> callbackRequests = new ArrayList<>();
+        Callable callable = new Callable() {
+            @Override
+            public Object call() {
+                return callCount.incrementAndGet();
+            }
+        };
+        AsyncResultCallback callback = new AsyncResultCallback() {
+            @Override
+            public void callback(Object invokeResult, ServletRequest request, ServletResponse response) {
+                callbackRequests.add(request);
+            }
+        };
+
+        AsyncContext first = newAsyncContext();
+        //超时后已经回收，getRequest和complete都抛出IllegalStateException
+        AsyncContext recycled = newAsyncContext(true, true);
+        //正在超时，complete抛出IllegalStateException
+        AsyncContext timingOut = newAsyncContext(false, true);
+        AsyncContext last = newAsyncContext();
+
+        for (AsyncContext asyncContext : Arrays.asList(first, recycled, timingOut, last)) {
+            AsyncContextTaskManager.addTask("timeout", callback, asyncContext, callable);
+        }
+        Assert.assertEquals(1, pendingTasks.size());
+        runPendingTasks();
+
+        Assert.assertEquals(1, callCount.get());
+        Assert.assertEquals(3, callbackRequests.size());
+        Assert.assertSame(first.getRequest(), callbackRequests.get(0));
+        Assert.assertSame(timingOut.getRequest(), callbackRequests.get(1));
+        Assert.assertSame(last.getRequest(), callbackRequests.get(2));
+        Assert.assertEquals(2, completeCount.get());
+        Assert.assertEquals(0, AsyncContextTaskManager.getInFlightCount());
+    }
+
+
+    //任务先放在pendingTasks中不执行，等所有线程都加入后再执行
+    private void addTasksConcurrently(final int keyCount, final AtomicInteger callCount, final AtomicInteger callbackCount) throws Exception {
+        AsyncContextTaskManager.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                pendingTasks.add(command);
+            }
+        });
+
+        final Callable callable = new Callable() {
+            @Override
+            public Object call() {
+                return callCount.incrementAndGet();
+            }
+        };
+
+        final AsyncResultCallback callback = new AsyncResultCallback() {
+            @Override
+            public void callback(Object invokeResult, ServletRequest request, ServletResponse response) {
+                callbackCount.incrementAndGet();
+            }
+        };
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final String taskKey = "key" + (i % keyCount);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    AsyncContextTaskManager.addTask(taskKey, callback, newAsyncContext(), callable);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+
+    private void runPendingTasks() {
+        Runnable task;
+        while ((task = pendingTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+
+    private AsyncContext newAsyncContext() {
+        return newAsyncContext(false, false);
+    }
+
+
+    //模拟超时的请求，Jetty中已经超时的AsyncContext会抛出IllegalStateException
+    private AsyncContext newAsyncContext(final boolean isRequestRecycled, final boolean isCompleted) {
+        final Object request = newProxy(ServletRequest.class);
+        final Object response = newProxy(ServletResponse.class);
+        return (AsyncContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{AsyncContext.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getRequest".equals(method.getName())) {
+                    if (isRequestRecycled) {
+                        throw new IllegalStateException("AsyncContext completed and/or Request lifecycle recycled");
+                    }
+                    return request;
+                }
+                if ("getResponse".equals(method.getName())) {
+                    return response;
+                }
+                if ("complete".equals(method.getName())) {
+                    if (isCompleted) {
+                        throw new IllegalStateException("timeout");
+                    }
+                    completeCount.incrementAndGet();
+                }
+                if ("equals".equals(method.getName())) {
+                    return proxy == args[0];
+                }
+                return null;
+            }
+        });
+    }
+
+
+    //所有方法都返回null
+    private Object newProxy(Class<?> clazz) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{clazz}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return null;
+            }
+        });
+    }
+}
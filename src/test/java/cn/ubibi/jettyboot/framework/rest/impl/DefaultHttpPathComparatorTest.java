@@ -0,0 +1,58 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DefaultHttpPathComparatorTest {
+
+    @Test
+    public void testMatch() {
+        DefaultHttpPathComparator comparator = new DefaultHttpPathComparator();
+        Assert.assertTrue(comparator.isMatch("/user/abc", "/user/abc"));
+        Assert.assertTrue(comparator.isMatch("/user/:id", "/user/23332"));
+        Assert.assertTrue(comparator.isMatch("/user/{name}/3232", "/user/abc/3232"));
+        Assert.assertFalse(comparator.isMatch("/user/{name}/3232", "/user/abc/3233"));
+        Assert.assertFalse(comparator.isMatch("/user/:id", "/order/1"));
+    }
+
+
+    //路径个数远超缓存上限时，多个线程同时匹配，结果正确而且缓存不会无限增长
+    @Test
+    public void testConcurrentMatchWithManyPaths() throws Exception {
+        final DefaultHttpPathComparator comparator = new DefaultHttpPathComparator();
+        final AtomicInteger errorCount = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            final int threadIndex = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 5000; i++) {
+                        int n = (i * 7 + threadIndex) % 3000;
+                        String targetPath = "/p" + n + "/:id";
+                        if (!comparator.isMatch(targetPath, "/p" + n + "/" + i)) {
+                            errorCount.incrementAndGet();
+                        }
+                        if (comparator.isMatch(targetPath, "/p" + (n + 1) + "/" + i)) {
+                            errorCount.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(0, errorCount.get());
+        Assert.assertTrue(DefaultHttpPathComparator.getCacheSize() <= 1024);
+        Assert.assertTrue(DefaultHttpPathComparator.getCacheSize() > 0);
+    }
+}
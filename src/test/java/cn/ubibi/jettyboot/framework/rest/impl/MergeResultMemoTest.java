@@ -0,0 +1,34 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import cn.ubibi.jettyboot.framework.commons.FrameworkConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MergeResultMemoTest {
+
+    @Test
+    public void testLingerAndBound() throws Exception {
+        MergeResultMemo.clear();
+
+        MergeResultMemo.put("a", "ra", 60000);
+        MergeResultMemo.put("b", null, 60000);
+        MergeResultMemo.put("c", "rc", 1);
+        Thread.sleep(5);
+
+        Assert.assertEquals("ra", MergeResultMemo.get("a").getInvokeResult());
+        Assert.assertNull(MergeResultMemo.get("b").getInvokeResult());
+        Assert.assertNull(MergeResultMemo.get("c"));
+        Assert.assertNull(MergeResultMemo.get("d"));
+
+        //超过上限时淘汰最早放入的
+        int maxSize = FrameworkConfig.getInstance().getMergeLingerMaxSize();
+        long evictionCount = MergeResultMemo.getEvictionCount();
+        for (int i = 0; i < maxSize * 2; i++) {
+            MergeResultMemo.put("k" + i, i, 60000);
+        }
+        Assert.assertTrue(MergeResultMemo.getSize() <= maxSize);
+        Assert.assertTrue(MergeResultMemo.getEvictionCount() > evictionCount);
+        Assert.assertNull(MergeResultMemo.get("k0"));
+        Assert.assertEquals(maxSize * 2 - 1, MergeResultMemo.get("k" + (maxSize * 2 - 1)).getInvokeResult());
+    }
+}
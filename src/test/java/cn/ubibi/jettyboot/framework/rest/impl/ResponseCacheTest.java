@@ -0,0 +1,82 @@
+package cn.ubibi.jettyboot.framework.rest.impl;
+
+import cn.ubibi.jettyboot.framework.commons.cache.CacheAnnotationUtils;
+import cn.ubibi.jettyboot.framework.commons.cache.CacheMethod;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ResponseCacheTest {
+
+    public static class UserController {
+
+        @CacheMethod(cacheKey = "user", paramKey = {0}, cacheResponse = true)
+        public Object user(int id) {
+            return "user" + id;
+        }
+
+        @CacheMethod(cacheKey = "userList", cacheResponse = true)
+        public Object userList() {
+            return "userList";
+        }
+    }
+
+
+    //针对某个用户的头信息不能被缓存后输出给其他请求
+    @Test
+    public void testPrivateHeadersNotCacheable() {
+        Assert.assertTrue(ResponseCache.isCacheable(headers("X-Aspect", "yes")));
+        Assert.assertTrue(ResponseCache.isCacheable(headers("Cache-Control", "max-age=60")));
+        Assert.assertFalse(ResponseCache.isCacheable(headers("Set-Cookie", "JSESSIONID=abc")));
+        Assert.assertFalse(ResponseCache.isCacheable(headers("set-cookie", "a=1")));
+        Assert.assertFalse(ResponseCache.isCacheable(headers("WWW-Authenticate", "Basic")));
+        Assert.assertFalse(ResponseCache.isCacheable(headers("Cache-Control", "private, max-age=60")));
+        Assert.assertFalse(ResponseCache.isCacheable(headers("Cache-Control", "no-store")));
+    }
+
+
+    //使"user"失效不能影响"userList"
+    @Test
+    public void testInvalidateByCacheKey() throws Exception {
+        Method userMethod = UserController.class.getMethod("user", int.class);
+        Method userListMethod = UserController.class.getMethod("userList");
+        String userKey = toCacheKey(userMethod, 5);
+        String userListKey = toCacheKey(userListMethod);
+
+        ResponseCache.put(userKey, newRender("user5"), 60000);
+        ResponseCache.put(userListKey, newRender("userList"), 60000);
+
+        ResponseCache.invalidate("user");
+        Assert.assertNull(ResponseCache.get(userKey));
+        Assert.assertNotNull(ResponseCache.get(userListKey));
+
+        ResponseCache.invalidate(userListMethod);
+        Assert.assertNull(ResponseCache.get(userListKey));
+    }
+
+
+    private static String toCacheKey(Method method, Object... params) {
+        CacheMethod cacheMethod = method.getDeclaredAnnotation(CacheMethod.class);
+        return CacheAnnotationUtils.toCacheKey(ResponseCache.toCacheKeyPrefix(method, cacheMethod), cacheMethod.paramKey(), params);
+    }
+
+
+    private static ResponseBytesRender newRender(String content) {
+        return new ResponseBytesRender(content.getBytes(StandardCharsets.UTF_8), "text/plain", null);
+    }
+
+
+    private static Map<String, List<String>> headers(String name, String... values) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", Collections.singletonList("text/plain"));
+        headers.put(name, Arrays.asList(values));
+        return headers;
+    }
+}